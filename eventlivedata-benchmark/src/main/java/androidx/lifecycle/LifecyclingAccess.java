@@ -0,0 +1,15 @@
+package androidx.lifecycle;
+
+/**
+ * Exposes the adapter lookup {@code LifecycleRegistry.addObserver} runs for every observer, it is
+ * package-private in lifecycle-common.
+ */
+public final class LifecyclingAccess {
+
+    private LifecyclingAccess() {
+    }
+
+    public static LifecycleEventObserver lifecycleEventObserver(Object observer) {
+        return Lifecycling.lifecycleEventObserver(observer);
+    }
+}
@@ -0,0 +1,22 @@
+package com.rugovit.eventlivedata.benchmark;
+
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+
+/**
+ * Headless replacement for the Android main looper, the thread that creates it is the main thread.
+ * Benchmarks drive {@link com.rugovit.eventlivedata.core.EventDispatcher} directly, which never posts.
+ */
+final class BenchmarkThread implements MainThreadScheduler {
+
+    private final Thread thread = Thread.currentThread();
+
+    @Override
+    public boolean isMainThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void post(Runnable task) {
+        throw new UnsupportedOperationException("Benchmarks do not post to the main thread");
+    }
+}
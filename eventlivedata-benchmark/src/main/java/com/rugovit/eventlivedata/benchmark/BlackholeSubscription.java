@@ -0,0 +1,23 @@
+package com.rugovit.eventlivedata.benchmark;
+
+import com.rugovit.eventlivedata.core.EventSubscription;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Subscription that hands every event to JMH so delivery can not be optimized away.
+ */
+final class BlackholeSubscription<T> extends EventSubscription<T> {
+
+    private final Blackhole blackhole;
+
+    BlackholeSubscription(Blackhole blackhole) {
+        super(new Object(), null);
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    protected void onEvent(T event) {
+        blackhole.consume(event);
+    }
+}
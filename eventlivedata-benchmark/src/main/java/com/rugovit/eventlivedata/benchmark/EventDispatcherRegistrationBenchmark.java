@@ -0,0 +1,55 @@
+package com.rugovit.eventlivedata.benchmark;
+
+import com.rugovit.eventlivedata.core.EventDispatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Add and remove churn of {@link EventDispatcher}, the price copy-on-write registry pays for allocation free dispatch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventDispatcherRegistrationBenchmark {
+
+    @Param({"0", "10", "100", "1000"})
+    int registeredObservers;
+
+    private EventDispatcher<Object> dispatcher;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        dispatcher = new EventDispatcher<>(new BenchmarkThread(), null);
+        for (int i = 0; i < registeredObservers; i++) {
+            BlackholeSubscription<Object> subscription = new BlackholeSubscription<>(blackhole);
+            dispatcher.add(subscription);
+            subscription.setActive(true);
+        }
+    }
+
+    @Benchmark
+    public void observeAndRemove() {
+        BlackholeSubscription<Object> subscription = new BlackholeSubscription<>(blackhole);
+        dispatcher.add(subscription);
+        subscription.setActive(true);
+        dispatcher.remove(subscription.getObserver());
+    }
+}
@@ -0,0 +1,107 @@
+package com.rugovit.eventlivedata.benchmark;
+
+import com.rugovit.eventlivedata.core.EventPostQueue;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Background threads offering to a queue while one thread polls it, without any main looper handoff.
+ * <p>
+ * {@code lossless} measures {@link EventPostQueue} used by lossless MutableEventLiveData,
+ * {@code singleSlot} is an AtomicReference that keeps only the latest pending value the way
+ * LiveData.postValue does.
+ * Auxiliary counters report posted and delivered events per second, loss rate under contention is
+ * {@code 1 - delivered / posted}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventPostQueueBenchmark {
+
+    private static final Object NOT_SET = new Object();
+
+    @State(Scope.Group)
+    public static class Channel {
+        @Param({"1024"})
+        int capacity;
+
+        @Param({"DROP_NEWEST", "DROP_OLDEST"})
+        OverflowPolicy overflowPolicy;
+
+        EventPostQueue<Object> queue;
+        final AtomicReference<Object> pendingSlot = new AtomicReference<>(NOT_SET);
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            queue = new EventPostQueue<>(capacity, overflowPolicy);
+            pendingSlot.set(NOT_SET);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long posted;
+        public long delivered;
+    }
+
+    @Benchmark
+    @Group("lossless")
+    @GroupThreads(3)
+    public void losslessPost(Channel channel, Counters counters) {
+        channel.queue.offer(Boolean.TRUE);
+        counters.posted++;
+    }
+
+    @Benchmark
+    @Group("lossless")
+    @GroupThreads(1)
+    public void losslessDrain(Channel channel, Counters counters, Blackhole blackhole) {
+        Object event = channel.queue.poll();
+        if (event != null) {
+            counters.delivered++;
+            blackhole.consume(event);
+        }
+    }
+
+    @Benchmark
+    @Group("singleSlot")
+    @GroupThreads(3)
+    public void singleSlotPost(Channel channel, Counters counters) {
+        // LiveData replaces pending value, previous post is lost if main thread did not take it yet
+        channel.pendingSlot.set(Boolean.TRUE);
+        counters.posted++;
+    }
+
+    @Benchmark
+    @Group("singleSlot")
+    @GroupThreads(1)
+    public void singleSlotDrain(Channel channel, Counters counters, Blackhole blackhole) {
+        Object event = channel.pendingSlot.getAndSet(NOT_SET);
+        if (event != NOT_SET) {
+            counters.delivered++;
+            blackhole.consume(event);
+        }
+    }
+}
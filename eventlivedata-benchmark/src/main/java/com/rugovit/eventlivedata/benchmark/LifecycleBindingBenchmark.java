@@ -0,0 +1,107 @@
+package com.rugovit.eventlivedata.benchmark;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecyclingAccess;
+import androidx.lifecycle.OnLifecycleEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold cost of the first {@code observe()}: binding the lifecycle wrapper the way {@code LifecycleRegistry.addObserver}
+ * does and moving it up to a resumed owner. A wrapper with {@code @OnLifecycleEvent(ON_ANY)} is introspected by
+ * reflection the first time its class is seen, a {@link LifecycleEventObserver} is used as it is. Every fork is a
+ * new JVM and only its first call is measured, so the score is the cold process cost, not the steady state one.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(30)
+@State(Scope.Thread)
+public class LifecycleBindingBenchmark {
+
+    private final LifecycleOwner owner = new ResumedOwner();
+
+    @Benchmark
+    public void annotatedObserver(Blackhole blackhole) {
+        bind(new AnnotatedWrapper(blackhole));
+    }
+
+    @Benchmark
+    public void lifecycleEventObserver(Blackhole blackhole) {
+        bind(new EventObserverWrapper(blackhole));
+    }
+
+    private void bind(Object wrapper) {
+        LifecycleEventObserver observer = LifecyclingAccess.lifecycleEventObserver(wrapper);
+        // new observer is brought to the owner's state one event at a time
+        observer.onStateChanged(owner, Lifecycle.Event.ON_CREATE);
+        observer.onStateChanged(owner, Lifecycle.Event.ON_START);
+        observer.onStateChanged(owner, Lifecycle.Event.ON_RESUME);
+    }
+
+    /**
+     * Lifecycle wrapper before it implemented {@link LifecycleEventObserver}.
+     */
+    public static class AnnotatedWrapper implements LifecycleObserver {
+        private final Blackhole blackhole;
+
+        AnnotatedWrapper(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @OnLifecycleEvent(Lifecycle.Event.ON_ANY)
+        void onStateChanged(LifecycleOwner source, Lifecycle.Event event) {
+            blackhole.consume(event);
+        }
+    }
+
+    public static class EventObserverWrapper implements LifecycleEventObserver {
+        private final Blackhole blackhole;
+
+        EventObserverWrapper(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onStateChanged(LifecycleOwner source, Lifecycle.Event event) {
+            blackhole.consume(event);
+        }
+    }
+
+    private static final class ResumedOwner implements LifecycleOwner {
+        private final Lifecycle lifecycle = new Lifecycle() {
+            @Override
+            public void addObserver(LifecycleObserver observer) {
+            }
+
+            @Override
+            public void removeObserver(LifecycleObserver observer) {
+            }
+
+            @Override
+            public State getCurrentState() {
+                return State.RESUMED;
+            }
+        };
+
+        @Override
+        public Lifecycle getLifecycle() {
+            return lifecycle;
+        }
+    }
+}
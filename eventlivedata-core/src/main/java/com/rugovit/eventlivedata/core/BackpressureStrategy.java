@@ -0,0 +1,136 @@
+package com.rugovit.eventlivedata.core;
+
+/**
+ * Defines what an {@link EventMailbox} does when events are dispatched faster than its observer
+ * handles them. Chosen per subscription, every mailbox counts events its strategy dropped.
+ */
+public final class BackpressureStrategy {
+
+    public enum Kind {
+        /**
+         * Buffer starts small and grows only when needed, up to the capacity. Once it is full the
+         * overflow policy of the strategy drops events.
+         */
+        BUFFER,
+        /**
+         * New event is dropped while the buffer is full.
+         */
+        DROP_NEWEST,
+        /**
+         * Oldest pending event is dropped to make room for the new one.
+         */
+        DROP_OLDEST,
+        /**
+         * Only the newest event is kept pending, every new event replaces the one that is still waiting.
+         */
+        LATEST,
+        /**
+         * Observer that falls behind by more than the capacity is failed: pending events are dropped,
+         * mailbox stops delivering and {@link EventBackpressureException} is reported on the main thread,
+         * see {@link EventMailbox.FailureHandler}.
+         */
+        ERROR
+    }
+
+    /**
+     * Buffer size a {@link Kind#BUFFER} mailbox starts with.
+     */
+    static final int INITIAL_BUFFER_CAPACITY = 16;
+
+    private final Kind kind;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+
+    private BackpressureStrategy(Kind kind, int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        this.kind = kind;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    private BackpressureStrategy(Kind kind, int capacity) {
+        this(kind, capacity, null);
+    }
+
+    /**
+     * Same as {@link #buffer(int, OverflowPolicy)} dropping the oldest event when full.
+     */
+    public static BackpressureStrategy buffer(int capacity) {
+        return buffer(capacity, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * @param capacity       maximum number of pending events, buffer doubles up to it whenever it is full
+     * @param overflowPolicy {@link OverflowPolicy#DROP_NEWEST} or {@link OverflowPolicy#DROP_OLDEST}, applied once capacity is reached
+     */
+    public static BackpressureStrategy buffer(int capacity, OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: overflowPolicy");
+        }
+        if (overflowPolicy == OverflowPolicy.CONFLATE) {
+            throw new IllegalArgumentException("Buffer overflow policy must drop newest or oldest event, use latest() to conflate");
+        }
+        return new BackpressureStrategy(Kind.BUFFER, capacity, overflowPolicy);
+    }
+
+    public static BackpressureStrategy dropNewest(int capacity) {
+        return new BackpressureStrategy(Kind.DROP_NEWEST, capacity);
+    }
+
+    public static BackpressureStrategy dropOldest(int capacity) {
+        return new BackpressureStrategy(Kind.DROP_OLDEST, capacity);
+    }
+
+    public static BackpressureStrategy latest() {
+        return new BackpressureStrategy(Kind.LATEST, 1);
+    }
+
+    /**
+     * @param capacity maximum number of pending events before observer is failed
+     */
+    public static BackpressureStrategy error(int capacity) {
+        return new BackpressureStrategy(Kind.ERROR, capacity);
+    }
+
+    /**
+     * Strategy equivalent to a mailbox with the given {@link OverflowPolicy}.
+     */
+    public static BackpressureStrategy of(OverflowPolicy overflowPolicy, int capacity) {
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: overflowPolicy");
+        }
+        switch (overflowPolicy) {
+            case DROP_NEWEST:
+                return dropNewest(capacity);
+            case DROP_OLDEST:
+                return dropOldest(capacity);
+            default:
+                return latest();
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return policy applied when a {@link Kind#BUFFER} mailbox reaches its capacity, null for other kinds
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    @Override
+    public String toString() {
+        if (kind == Kind.LATEST) {
+            return kind.name();
+        }
+        return overflowPolicy == null ? kind.name() + "(" + capacity + ")" : kind.name() + "(" + capacity + ", " + overflowPolicy + ")";
+    }
+}
@@ -0,0 +1,14 @@
+package com.rugovit.eventlivedata.core;
+
+/**
+ * Reported on the main thread when observer with {@link BackpressureStrategy.Kind#ERROR} strategy
+ * falls behind by more than the strategy capacity.
+ */
+public class EventBackpressureException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public EventBackpressureException(String message) {
+        super(message);
+    }
+}
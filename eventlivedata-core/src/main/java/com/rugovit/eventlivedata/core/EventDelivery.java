@@ -0,0 +1,27 @@
+package com.rugovit.eventlivedata.core;
+
+/**
+ * Delivers events to an observer in some other way than calling it directly from the dispatch loop.
+ * <p>
+ * {@link #deliver(Object)} is called from the dispatch loop on the main thread, only while the
+ * subscription is active. {@link #close()} is called once, when subscription is removed.
+ */
+public abstract class EventDelivery<T> {
+
+    /**
+     * Called on the main thread for every event dispatched to an active subscription.
+     */
+    protected abstract void deliver(T event);
+
+    /**
+     * Called on the main thread every time subscription becomes active or inactive.
+     */
+    protected void onActiveStateChanged(boolean active) {
+    }
+
+    /**
+     * Called on the main thread after subscription was removed, pending events should be discarded.
+     */
+    protected void close() {
+    }
+}
@@ -0,0 +1,643 @@
+package com.rugovit.eventlivedata.core;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Observer registry, activity gating and dispatch loop of EventLiveData, independent of Android.
+ * <p>
+ * Registered and active subscriptions are kept in two copy-on-write arrays. Active array is sorted by
+ * priority and then by registration order when a subscription is activated, so dispatch never sorts.
+ * Dispatch walks only the active array with an index loop, so it never allocates and observers can
+ * be added, removed, activated or deactivated while an event is being dispatched. Registry changes
+ * pay for copying the arrays instead.
+ * <p>
+ * Observer can stop the event from reaching the rest of the loop with {@link #consume()}.
+ * <p>
+ * Inactive subscriptions with a pending buffer are kept in a third array, they are visited after
+ * the active ones so the regular loop stays the same when no buffering is used.
+ * <p>
+ * Subscription with a key receives only events dispatched for that key. Active keyed subscriptions
+ * are indexed by key, so a keyed dispatch visits the subscriptions without a key and the ones with
+ * matching key only, still in dispatch order.
+ * <p>
+ * All methods except the getters must be called on the thread of the {@link MainThreadScheduler}.
+ *
+ * @param <T> type of events
+ */
+public class EventDispatcher<T> {
+
+    /**
+     * Notified when number of active subscriptions changes between 0 and 1.
+     */
+    public interface ActiveStateListener {
+
+        void onActive();
+
+        void onInactive();
+    }
+
+    /**
+     * Receives timing of every delivery when passed to {@link #dispatch(Object, Monitor)}.
+     */
+    public interface Monitor {
+
+        /**
+         * @param subscription   subscription event was delivered to
+         * @param startNanos     {@link System#nanoTime()} before the delivery
+         * @param durationNanos  time spent delivering to this subscription
+         */
+        void onDelivered(EventSubscription<?> subscription, long startNanos, long durationNanos);
+    }
+
+    private final MainThreadScheduler scheduler;
+    private final ActiveStateListener listener;
+    private EventSubscription<T>[] subscriptions = newArray(0);
+    private EventSubscription<T>[] activeSubscriptions = newArray(0);
+    private EventSubscription<T>[] bufferingSubscriptions = newArray(0);
+    private final HashMap<Object, EventSubscription<T>[]> activeByKey = new HashMap<>();
+    private long activeVersion;
+    private int activeCount;
+    private long nextOrder;
+    private int dispatchDepth;
+    // set by consume(), belongs to the innermost running dispatch
+    private boolean consumed;
+
+    public EventDispatcher(MainThreadScheduler scheduler, ActiveStateListener listener) {
+        if (scheduler == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: scheduler");
+        }
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    public MainThreadScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @throws IllegalStateException if not called on the main thread
+     */
+    public void assertMainThread(String methodName) {
+        if (!scheduler.isMainThread()) {
+            throw new IllegalStateException("Cannot invoke " + methodName + " on a background"
+                    + " thread");
+        }
+    }
+
+    /**
+     * Delivers event to every subscription that is active, by priority and then in registration order.
+     *
+     * @return number of subscriptions event was delivered to
+     */
+    public int dispatch(T event) {
+        return dispatchActive(null, event);
+    }
+
+    /**
+     * Dispatch loop over subscriptions without a key, key only selects buffering subscriptions that
+     * collect the event.
+     */
+    private int dispatchActive(Object key, T event) {
+        int delivered = 0;
+        EventSubscription<T>[] buffering = bufferingSubscriptions;
+        EventSubscription<T>[] snapshot = activeSubscriptions;
+        boolean outerConsumed = beginDispatch();
+        try {
+            for (int i = 0; i < snapshot.length && !consumed; i++) {
+                EventSubscription<T> subscription = snapshot[i];
+                // subscription could be removed or deactivated by one of the previous observers during this dispatch
+                if (subscription.active) {
+                    subscription.dispatch(event);
+                    delivered++;
+                } else if (subscription.pendingBuffer != null) {
+                    bufferMissed(subscription, event);
+                }
+            }
+            if (buffering.length > 0 && !consumed) {
+                delivered += dispatchBuffering(buffering, key, event);
+            }
+        } finally {
+            endDispatch(outerConsumed);
+        }
+        return delivered;
+    }
+
+    /**
+     * Same as {@link #dispatch(Object)} but measures every delivery. Kept separate so the regular
+     * dispatch loop does not pay for reading the clock.
+     *
+     * @return number of subscriptions event was delivered to
+     */
+    public int dispatch(T event, Monitor monitor) {
+        return dispatchActive(null, event, monitor);
+    }
+
+    private int dispatchActive(Object key, T event, Monitor monitor) {
+        int delivered = 0;
+        EventSubscription<T>[] buffering = bufferingSubscriptions;
+        EventSubscription<T>[] snapshot = activeSubscriptions;
+        boolean outerConsumed = beginDispatch();
+        try {
+            for (int i = 0; i < snapshot.length && !consumed; i++) {
+                EventSubscription<T> subscription = snapshot[i];
+                if (subscription.active) {
+                    long start = System.nanoTime();
+                    subscription.dispatch(event);
+                    monitor.onDelivered(subscription, start, System.nanoTime() - start);
+                    delivered++;
+                } else if (subscription.pendingBuffer != null) {
+                    bufferMissed(subscription, event);
+                }
+            }
+            if (buffering.length > 0 && !consumed) {
+                delivered += dispatchBuffering(buffering, key, event);
+            }
+        } finally {
+            endDispatch(outerConsumed);
+        }
+        return delivered;
+    }
+
+    /**
+     * Delivers event to every active subscription without a key and to active subscriptions with the
+     * given key, by priority and then in registration order.
+     *
+     * @param key key of the event, null to reach only subscriptions without a key
+     * @return number of subscriptions event was delivered to
+     */
+    public int dispatch(Object key, T event) {
+        return dispatchKeyed(key, event, null);
+    }
+
+    /**
+     * Same as {@link #dispatch(Object, Object)} but measures every delivery.
+     *
+     * @return number of subscriptions event was delivered to
+     */
+    public int dispatch(Object key, T event, Monitor monitor) {
+        return dispatchKeyed(key, event, monitor);
+    }
+
+    private int dispatchKeyed(Object key, T event, Monitor monitor) {
+        EventSubscription<T>[] keyed = key == null ? null : activeByKey.get(key);
+        if (keyed == null) {
+            // no active subscription has the key, but buffering ones with the key still collect the event
+            return monitor == null ? dispatchActive(key, event) : dispatchActive(key, event, monitor);
+        }
+        int delivered = 0;
+        EventSubscription<T>[] buffering = bufferingSubscriptions;
+        EventSubscription<T>[] unkeyed = activeSubscriptions;
+        int i = 0;
+        int j = 0;
+        boolean outerConsumed = beginDispatch();
+        try {
+            // both arrays are sorted in dispatch order, walk them as one
+            while ((i < unkeyed.length || j < keyed.length) && !consumed) {
+                EventSubscription<T> subscription;
+                if (j == keyed.length || (i < unkeyed.length && precedes(unkeyed[i], keyed[j]))) {
+                    subscription = unkeyed[i++];
+                } else {
+                    subscription = keyed[j++];
+                }
+                if (subscription.active) {
+                    if (monitor == null) {
+                        subscription.dispatch(event);
+                    } else {
+                        long start = System.nanoTime();
+                        subscription.dispatch(event);
+                        monitor.onDelivered(subscription, start, System.nanoTime() - start);
+                    }
+                    delivered++;
+                } else if (subscription.pendingBuffer != null) {
+                    bufferMissed(subscription, event);
+                }
+            }
+            if (buffering.length > 0 && !consumed) {
+                delivered += dispatchBuffering(buffering, key, event);
+            }
+        } finally {
+            endDispatch(outerConsumed);
+        }
+        return delivered;
+    }
+
+    /**
+     * Delivers event to subscriptions of a table built with {@link #collectActive(Object[])} that are still
+     * active. Lets callers that route one event to several keys keep the table between dispatches.
+     *
+     * @return number of subscriptions event was delivered to
+     */
+    public int dispatchTo(EventSubscription<T>[] table, T event) {
+        int delivered = 0;
+        boolean outerConsumed = beginDispatch();
+        try {
+            for (int i = 0; i < table.length && !consumed; i++) {
+                EventSubscription<T> subscription = table[i];
+                if (subscription.active) {
+                    subscription.dispatch(event);
+                    delivered++;
+                }
+            }
+        } finally {
+            endDispatch(outerConsumed);
+        }
+        return delivered;
+    }
+
+    /**
+     * Stops the event being dispatched from reaching subscriptions after the current one, including
+     * pending buffers. Affects only the innermost dispatch when dispatches are nested, has no effect
+     * outside of a dispatch loop, like while a pending buffer is flushed.
+     */
+    public void consume() {
+        if (dispatchDepth > 0) {
+            consumed = true;
+        }
+    }
+
+    /**
+     * @return consumed flag of the enclosing dispatch, to be restored by {@link #endDispatch(boolean)}
+     */
+    private boolean beginDispatch() {
+        boolean outerConsumed = consumed;
+        consumed = false;
+        dispatchDepth++;
+        return outerConsumed;
+    }
+
+    private void endDispatch(boolean outerConsumed) {
+        dispatchDepth--;
+        consumed = outerConsumed;
+    }
+
+    /**
+     * Builds a new array of active subscriptions without a key and with any of the given keys, in
+     * dispatch order. Table is valid until {@link #getActiveVersion()} changes.
+     */
+    public EventSubscription<T>[] collectActive(Object[] keys) {
+        EventSubscription<T>[] table = activeSubscriptions;
+        for (Object key : keys) {
+            EventSubscription<T>[] keyed = activeByKey.get(key);
+            if (keyed != null) {
+                EventSubscription<T>[] merged = newArray(table.length + keyed.length);
+                int i = 0;
+                int j = 0;
+                for (int position = 0; position < merged.length; position++) {
+                    if (j == keyed.length || (i < table.length && precedes(table[i], keyed[j]))) {
+                        merged[position] = table[i++];
+                    } else {
+                        merged[position] = keyed[j++];
+                    }
+                }
+                table = merged;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return number that changes whenever any subscription is activated or deactivated
+     */
+    public long getActiveVersion() {
+        return activeVersion;
+    }
+
+    /**
+     * Active subscriptions in dispatch order, for callers that run their own delivery loop, like
+     * primitive events that must not be boxed into {@code T}. The array is shared and must not be
+     * modified. Subscription can be deactivated while the loop runs, so {@link EventSubscription#isActive()}
+     * has to be checked before every delivery, same as {@link #dispatch(Object)} does.
+     */
+    public EventSubscription<T>[] getActiveSnapshot() {
+        return activeSubscriptions;
+    }
+
+    /**
+     * All registered subscriptions, active or not, in registration order. The array is shared and must not be modified.
+     */
+    public EventSubscription<T>[] getSubscriptionSnapshot() {
+        return subscriptions;
+    }
+
+    /**
+     * @return subscription registered for the observer or null
+     */
+    public EventSubscription<T> find(Object observer) {
+        EventSubscription<T>[] snapshot = subscriptions;
+        int index = indexOf(snapshot, observer);
+        return index < 0 ? null : snapshot[index];
+    }
+
+    /**
+     * Registers inactive subscription.
+     *
+     * @throws IllegalArgumentException if subscription is already registered
+     */
+    public void add(EventSubscription<T> subscription) {
+        if (subscription.dispatcher != null) {
+            throw new IllegalArgumentException("Subscription is already registered");
+        }
+        subscription.dispatcher = this;
+        subscription.order = nextOrder++;
+        EventSubscription<T>[] snapshot = subscriptions;
+        EventSubscription<T>[] added = Arrays.copyOf(snapshot, snapshot.length + 1);
+        added[snapshot.length] = subscription;
+        subscriptions = added;
+        if (subscription.pendingBuffer != null) {
+            bufferingSubscriptions = with(bufferingSubscriptions, subscription);
+        }
+    }
+
+    /**
+     * Removes subscription registered for the observer and deactivates it.
+     *
+     * @return removed subscription or null if observer was not registered
+     */
+    public EventSubscription<T> remove(Object observer) {
+        EventSubscription<T>[] snapshot = subscriptions;
+        int index = indexOf(snapshot, observer);
+        if (index < 0) {
+            return null;
+        }
+        EventSubscription<T> removed = snapshot[index];
+        subscriptions = without(snapshot, index);
+        removed.markRemoved();
+        removeBuffering(removed);
+        activeStateChanged(removed, false);
+        return removed;
+    }
+
+    /**
+     * Removes all given subscriptions with a single copy of the registry and of the active arrays.
+     */
+    public void removeAll(EventSubscription<T>[] toRemove) {
+        int count = 0;
+        int deactivated = 0;
+        boolean keyed = false;
+        for (EventSubscription<T> subscription : toRemove) {
+            if (subscription.dispatcher == this && !subscription.removed) {
+                subscription.markRemoved();
+                removeBuffering(subscription);
+                count++;
+                if (subscription.active) {
+                    subscription.active = false;
+                    subscription.notifyActiveStateChanged();
+                    deactivated++;
+                    keyed |= subscription.key != null;
+                }
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        subscriptions = withoutRemoved(subscriptions, count);
+        if (deactivated == 0) {
+            return;
+        }
+        activeVersion++;
+        activeSubscriptions = withoutInactive(activeSubscriptions);
+        if (keyed) {
+            for (EventSubscription<T> subscription : toRemove) {
+                Object key = subscription.key;
+                EventSubscription<T>[] byKey = key == null ? null : activeByKey.get(key);
+                if (byKey != null && subscription.dispatcher == this && !subscription.active) {
+                    EventSubscription<T>[] remaining = withoutInactive(byKey);
+                    if (remaining.length == 0) {
+                        activeByKey.remove(key);
+                    } else if (remaining.length != byKey.length) {
+                        activeByKey.put(key, remaining);
+                    }
+                }
+            }
+        }
+        activeCount -= deactivated;
+        if (listener != null && activeCount == 0) {
+            listener.onInactive();
+        }
+    }
+
+    /**
+     * Removes subscriptions whose weakly held observers were collected, see
+     * {@link EventSubscription#EventSubscription(Object, EventDelivery, ReferenceQueue)}. Only polls the queue
+     * when nothing was collected, so it is cheap enough to call before every dispatch.
+     *
+     * @return number of removed subscriptions
+     */
+    @SuppressWarnings("unchecked")
+    public int purgeCollected(ReferenceQueue<Object> referenceQueue) {
+        int purged = 0;
+        Reference<?> collected;
+        while ((collected = referenceQueue.poll()) != null) {
+            if (!(collected instanceof EventSubscription.WeakObserver)) {
+                continue;
+            }
+            EventSubscription<T> subscription = (EventSubscription<T>) ((EventSubscription.WeakObserver) collected).subscription;
+            if (subscription.dispatcher == this && !subscription.removed) {
+                EventSubscription<T>[] single = newArray(1);
+                single[0] = subscription;
+                removeAll(single);
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    public boolean hasSubscriptions() {
+        return subscriptions.length > 0;
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.length;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    void activeStateChanged(EventSubscription<T> subscription, boolean newActive) {
+        if (newActive == subscription.active) {
+            return;
+        }
+        // immediately set active state, so we'd never dispatch anything to inactive subscription
+        subscription.active = newActive;
+        activeVersion++;
+        if (newActive) {
+            addActive(subscription);
+        } else {
+            removeActive(subscription);
+        }
+        if (subscription.pendingBuffer != null) {
+            if (newActive) {
+                removeBuffering(subscription);
+            } else if (!subscription.removed) {
+                bufferingSubscriptions = with(bufferingSubscriptions, subscription);
+            }
+        }
+        subscription.notifyActiveStateChanged();
+        boolean wasInactive = activeCount == 0;
+        activeCount += newActive ? 1 : -1;
+        if (listener != null) {
+            if (wasInactive && newActive) {
+                listener.onActive();
+            }
+            if (activeCount == 0 && !newActive) {
+                listener.onInactive();
+            }
+        }
+        if (newActive && subscription.pendingBuffer != null) {
+            subscription.pendingBuffer.flush(subscription);
+        }
+    }
+
+    /**
+     * Visits subscriptions that were buffering when dispatch started: they are given the event
+     * directly if an observer activated them during this dispatch, after their buffer was flushed,
+     * otherwise event is added to their buffer.
+     */
+    private int dispatchBuffering(EventSubscription<T>[] buffering, Object key, T event) {
+        int delivered = 0;
+        long now = 0;
+        for (int i = 0; i < buffering.length; i++) {
+            EventSubscription<T> subscription = buffering[i];
+            if (subscription.removed || (subscription.key != null && !subscription.key.equals(key))) {
+                continue;
+            }
+            if (subscription.active) {
+                subscription.dispatch(event);
+                delivered++;
+            } else {
+                if (now == 0 && subscription.pendingBuffer.hasTimeToLive()) {
+                    now = System.nanoTime();
+                }
+                subscription.pendingBuffer.add(event, now);
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Subscription was deactivated by a previous observer of the same dispatch, before the event reached it.
+     */
+    private void bufferMissed(EventSubscription<T> subscription, T event) {
+        if (!subscription.removed) {
+            subscription.pendingBuffer.add(event, subscription.pendingBuffer.hasTimeToLive() ? System.nanoTime() : 0);
+        }
+    }
+
+    private void removeBuffering(EventSubscription<T> subscription) {
+        EventSubscription<T>[] snapshot = bufferingSubscriptions;
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] == subscription) {
+                bufferingSubscriptions = without(snapshot, i);
+                return;
+            }
+        }
+    }
+
+    private void addActive(EventSubscription<T> subscription) {
+        if (subscription.key != null) {
+            EventSubscription<T>[] keyed = activeByKey.get(subscription.key);
+            activeByKey.put(subscription.key, inserted(keyed == null ? EventDispatcher.<T>newArray(0) : keyed, subscription));
+            return;
+        }
+        activeSubscriptions = inserted(activeSubscriptions, subscription);
+    }
+
+    private EventSubscription<T>[] inserted(EventSubscription<T>[] snapshot, EventSubscription<T> subscription) {
+        int index = snapshot.length;
+        while (index > 0 && precedes(subscription, snapshot[index - 1])) {
+            index--;
+        }
+        EventSubscription<T>[] added = newArray(snapshot.length + 1);
+        System.arraycopy(snapshot, 0, added, 0, index);
+        added[index] = subscription;
+        System.arraycopy(snapshot, index, added, index + 1, snapshot.length - index);
+        return added;
+    }
+
+    private void removeActive(EventSubscription<T> subscription) {
+        Object key = subscription.key;
+        EventSubscription<T>[] snapshot = key == null ? activeSubscriptions : activeByKey.get(key);
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] == subscription) {
+                EventSubscription<T>[] remaining = without(snapshot, i);
+                if (key == null) {
+                    activeSubscriptions = remaining;
+                } else if (remaining.length == 0) {
+                    activeByKey.remove(key);
+                } else {
+                    activeByKey.put(key, remaining);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if a is dispatched before b: higher priority first, then registration order
+     */
+    private static boolean precedes(EventSubscription<?> a, EventSubscription<?> b) {
+        return a.priority != b.priority ? a.priority > b.priority : a.order < b.order;
+    }
+
+    private static int indexOf(EventSubscription<?>[] snapshot, Object observer) {
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i].getObserver() == observer) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private EventSubscription<T>[] withoutRemoved(EventSubscription<T>[] snapshot, int removedCount) {
+        EventSubscription<T>[] remaining = newArray(snapshot.length - removedCount);
+        int position = 0;
+        for (EventSubscription<T> subscription : snapshot) {
+            if (!subscription.removed) {
+                remaining[position++] = subscription;
+            }
+        }
+        return remaining;
+    }
+
+    private EventSubscription<T>[] withoutInactive(EventSubscription<T>[] snapshot) {
+        int active = 0;
+        for (EventSubscription<T> subscription : snapshot) {
+            if (subscription.active) {
+                active++;
+            }
+        }
+        if (active == snapshot.length) {
+            return snapshot;
+        }
+        EventSubscription<T>[] remaining = newArray(active);
+        int position = 0;
+        for (EventSubscription<T> subscription : snapshot) {
+            if (subscription.active) {
+                remaining[position++] = subscription;
+            }
+        }
+        return remaining;
+    }
+
+    private EventSubscription<T>[] with(EventSubscription<T>[] snapshot, EventSubscription<T> subscription) {
+        EventSubscription<T>[] added = Arrays.copyOf(snapshot, snapshot.length + 1);
+        added[snapshot.length] = subscription;
+        return added;
+    }
+
+    private EventSubscription<T>[] without(EventSubscription<T>[] snapshot, int index) {
+        EventSubscription<T>[] remaining = newArray(snapshot.length - 1);
+        System.arraycopy(snapshot, 0, remaining, 0, index);
+        System.arraycopy(snapshot, index + 1, remaining, index, snapshot.length - index - 1);
+        return remaining;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> EventSubscription<T>[] newArray(int size) {
+        return (EventSubscription<T>[]) new EventSubscription[size];
+    }
+}
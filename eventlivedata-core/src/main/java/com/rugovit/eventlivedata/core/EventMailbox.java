@@ -0,0 +1,243 @@
+package com.rugovit.eventlivedata.core;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Bounded per-observer queue drained on an {@link Executor}.
+ * <p>
+ * Main thread only enqueues the event and, if the mailbox is idle, submits one drain task, so a slow
+ * consumer never blocks the dispatch loop. Only one drain task runs at a time which keeps events
+ * ordered even on a multi-threaded executor. What happens when the observer falls behind is defined
+ * by the {@link BackpressureStrategy} of the mailbox.
+ * <p>
+ * {@link PooledEvent}s are retained while they wait in the mailbox and released after the observer
+ * was called or the event was dropped.
+ * <p>
+ * Mailbox fails when {@link BackpressureStrategy.Kind#ERROR} capacity is exceeded or the executor rejects
+ * the drain task. Failed mailbox drops pending and later events and reports the failure on the main thread,
+ * to its {@link FailureHandler} or, without one, by throwing from the dispatch loop. Exception thrown by the
+ * observer does not fail the mailbox, it is thrown to the executor and the following events are delivered.
+ */
+public final class EventMailbox<T> extends EventDelivery<T> implements Runnable {
+
+    private final EventObserver<? super T> observer;
+    private final Executor executor;
+    private final BackpressureStrategy strategy;
+    private Object[] buffer;
+    private int head;
+    private int size;
+    private boolean drainScheduled;
+    private long droppedCount;
+    private volatile boolean closed;
+    private boolean failed;
+    private RuntimeException unreportedFailure;
+    private final FailureHandler failureHandler;
+
+    public EventMailbox(EventObserver<? super T> observer, Executor executor, int capacity, OverflowPolicy overflowPolicy) {
+        this(observer, executor, BackpressureStrategy.of(overflowPolicy, capacity));
+    }
+
+    public EventMailbox(EventObserver<? super T> observer, Executor executor, BackpressureStrategy strategy) {
+        this(observer, executor, strategy, null);
+    }
+
+    /**
+     * @param failureHandler called on the main thread when the mailbox fails, null to throw the failure from the dispatch loop
+     */
+    public EventMailbox(EventObserver<? super T> observer, Executor executor, BackpressureStrategy strategy, FailureHandler failureHandler) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: strategy");
+        }
+        this.observer = observer;
+        this.executor = executor;
+        this.strategy = strategy;
+        this.failureHandler = failureHandler;
+        this.buffer = new Object[strategy.getKind() == BackpressureStrategy.Kind.BUFFER
+                ? Math.min(strategy.getCapacity(), BackpressureStrategy.INITIAL_BUFFER_CAPACITY)
+                : strategy.getCapacity()];
+    }
+
+    @Override
+    protected void deliver(T t) {
+        boolean schedule = false;
+        RuntimeException failure = null;
+        synchronized (this) {
+            if (failed) {
+                droppedCount++;
+                // failure of a drain rescheduled off the main thread is reported here
+                failure = unreportedFailure;
+                unreportedFailure = null;
+            } else if (size == buffer.length && buffer.length < strategy.getCapacity()) {
+                grow();
+            } else if (size == buffer.length) {
+                switch (overflowKind()) {
+                    case DROP_NEWEST:
+                        droppedCount++;
+                        return;
+                    case ERROR:
+                        droppedCount += size + 1;
+                        failed = true;
+                        clear();
+                        failure = new EventBackpressureException("Observer " + observer + " fell behind by more than "
+                                + strategy.getCapacity() + " events, strategy " + strategy);
+                        break;
+                    default:
+                        // DROP_OLDEST and LATEST, with LATEST buffer holds only one event
+                        droppedCount++;
+                        PooledEvent.releaseIfPooled(buffer[head]);
+                        buffer[head] = null;
+                        head = (head + 1) % buffer.length;
+                        size--;
+                }
+            }
+            if (!failed) {
+                PooledEvent.retainIfPooled(t);
+                buffer[(head + size) % buffer.length] = t;
+                size++;
+                if (!drainScheduled) {
+                    drainScheduled = true;
+                    schedule = true;
+                }
+            }
+        }
+        if (schedule) {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    // nothing will drain the queued events
+                    droppedCount += size;
+                    failed = true;
+                    drainScheduled = false;
+                    clear();
+                }
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            if (failureHandler == null) {
+                throw failure;
+            }
+            failureHandler.onMailboxFailed(this, failure);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run() {
+        for (; ; ) {
+            T event;
+            synchronized (this) {
+                if (size == 0 || closed || failed) {
+                    drainScheduled = false;
+                    return;
+                }
+                event = (T) buffer[head];
+                buffer[head] = null;
+                head = (head + 1) % buffer.length;
+                size--;
+            }
+            boolean delivered = false;
+            try {
+                observer.onEvent(event);
+                delivered = true;
+            } finally {
+                PooledEvent.releaseIfPooled(event);
+                if (!delivered) {
+                    rescheduleDrain();
+                }
+            }
+        }
+    }
+
+    /**
+     * Observer exception leaves this drain task to the executor, events after the failed one are
+     * drained by a new task.
+     */
+    private void rescheduleDrain() {
+        synchronized (this) {
+            drainScheduled = size > 0 && !closed && !failed;
+            if (!drainScheduled) {
+                return;
+            }
+        }
+        try {
+            executor.execute(this);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                droppedCount += size;
+                failed = true;
+                drainScheduled = false;
+                unreportedFailure = e;
+                clear();
+            }
+        }
+    }
+
+    @Override
+    protected void close() {
+        closed = true;
+        synchronized (this) {
+            clear();
+        }
+    }
+
+    /**
+     * @return true if the mailbox failed and no longer delivers events
+     */
+    public synchronized boolean isFailed() {
+        return failed;
+    }
+
+    public BackpressureStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return number of events dropped by the {@link BackpressureStrategy}
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return kind that decides what a full buffer drops, a full {@link BackpressureStrategy.Kind#BUFFER} uses its overflow policy
+     */
+    private BackpressureStrategy.Kind overflowKind() {
+        if (strategy.getKind() != BackpressureStrategy.Kind.BUFFER) {
+            return strategy.getKind();
+        }
+        return strategy.getOverflowPolicy() == OverflowPolicy.DROP_NEWEST ? BackpressureStrategy.Kind.DROP_NEWEST : BackpressureStrategy.Kind.DROP_OLDEST;
+    }
+
+    private void grow() {
+        Object[] grown = new Object[(int) Math.min((long) buffer.length * 2, strategy.getCapacity())];
+        for (int i = 0; i < size; i++) {
+            grown[i] = buffer[(head + i) % buffer.length];
+        }
+        buffer = grown;
+        head = 0;
+    }
+
+    private void clear() {
+        while (size > 0) {
+            PooledEvent.releaseIfPooled(buffer[head]);
+            buffer[head] = null;
+            head = (head + 1) % buffer.length;
+            size--;
+        }
+    }
+
+    /**
+     * Receives the failure of a mailbox, typically removes its subscription.
+     */
+    public interface FailureHandler {
+
+        /**
+         * Called on the main thread once, when the mailbox failed.
+         *
+         * @param error {@link EventBackpressureException} or the exception the executor threw
+         */
+        void onMailboxFailed(EventMailbox<?> mailbox, RuntimeException error);
+    }
+}
@@ -0,0 +1,11 @@
+package com.rugovit.eventlivedata.core;
+
+/**
+ * Plain Java callback receiving events from {@link EventDispatcher} or {@link EventMailbox}.
+ *
+ * @param <T> type of events
+ */
+public interface EventObserver<T> {
+
+    void onEvent(T event);
+}
@@ -0,0 +1,61 @@
+package com.rugovit.eventlivedata.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of {@link PooledEvent} payloads.
+ * <p>
+ * Free payloads are kept in an {@link EventPostQueue}, so payloads can be obtained on any thread and
+ * returned on the main thread without locks. Pool never blocks: when it is empty a new payload is
+ * created, when it is full the returned payload is left to the garbage collector.
+ *
+ * @param <T> type of payloads
+ */
+public final class EventPool<T extends PooledEvent> {
+
+    /**
+     * Creates new payloads when the pool is empty.
+     */
+    public interface Factory<T> {
+
+        T create();
+    }
+
+    private final Factory<? extends T> factory;
+    private final EventPostQueue<T> free;
+    private final AtomicLong createdCount = new AtomicLong();
+
+    public EventPool(int capacity, Factory<? extends T> factory) {
+        if (factory == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: factory");
+        }
+        this.factory = factory;
+        this.free = new EventPostQueue<>(capacity, OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * @return payload holding one reference, reused if pool is not empty
+     */
+    public T obtain() {
+        T event = free.poll();
+        if (event == null) {
+            event = factory.create();
+            event.pool = this;
+            createdCount.incrementAndGet();
+        }
+        event.setReferenced();
+        return event;
+    }
+
+    /**
+     * @return number of payloads created because the pool was empty
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    void recycle(PooledEvent event) {
+        free.offer((T) event);
+    }
+}
@@ -0,0 +1,117 @@
+package com.rugovit.eventlivedata.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free FIFO queue used for posting events from background threads.
+ * <p>
+ * Any number of threads can offer events, main thread is the only regular consumer. Producers can
+ * also remove the oldest element when {@link OverflowPolicy#DROP_OLDEST} is used, so every slot
+ * carries a sequence number (Vyukov bounded queue) which keeps that safe without locks.
+ * <p>
+ * Capacity is rounded up to the next power of two. Null elements are not allowed.
+ */
+public final class EventPostQueue<T> {
+
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicReferenceArray<T> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public EventPostQueue(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: overflowPolicy");
+        }
+        if (overflowPolicy == OverflowPolicy.CONFLATE) {
+            throw new IllegalArgumentException("CONFLATE is not supported by the post queue");
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds event to the end of the queue, applying {@link OverflowPolicy} if the queue is full.
+     *
+     * @return true if event was added
+     */
+    public boolean offer(T value) {
+        while (!tryOffer(value)) {
+            if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            if (poll() != null) {
+                droppedCount.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return oldest event in the queue or null if queue is empty
+     */
+    public T poll() {
+        for (; ; ) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    T value = buffer.get(index);
+                    buffer.lazySet(index, null);
+                    sequences.lazySet(index, position + mask + 1);
+                    return value;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        long position = head.get();
+        return sequences.get((int) position & mask) - (position + 1) < 0;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private boolean tryOffer(T value) {
+        for (; ; ) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, value);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+}
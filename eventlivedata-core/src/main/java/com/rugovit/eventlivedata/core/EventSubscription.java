@@ -0,0 +1,202 @@
+package com.rugovit.eventlivedata.core;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One observer registered in an {@link EventDispatcher}.
+ * <p>
+ * Subscription does not know anything about lifecycles, whoever owns it decides when it is active
+ * and flips it with {@link #setActive(boolean)}. Dispatcher delivers events only to active
+ * subscriptions, or buffers them for inactive subscription that has a pending buffer.
+ *
+ * @param <T> type of events
+ */
+public abstract class EventSubscription<T> {
+
+    // the observer itself or WeakObserver when observer is held weakly
+    private final Object observer;
+    private final EventDelivery<T> delivery;
+    EventDispatcher<T> dispatcher;
+    long order;
+    int priority;
+    boolean active;
+    boolean removed;
+    PendingEventBuffer<T> pendingBuffer;
+    Object key;
+
+    /**
+     * @param observer identity of the subscription, used to find it in the dispatcher
+     * @param delivery null to receive events directly in {@link #onEvent(Object)}
+     */
+    protected EventSubscription(Object observer, EventDelivery<T> delivery) {
+        this.observer = observer;
+        this.delivery = delivery;
+    }
+
+    /**
+     * Creates subscription that holds its observer weakly. Once the observer is collected
+     * {@link #getObserver()} returns null and the subscription is enqueued in the referenceQueue,
+     * from where {@link EventDispatcher#purgeCollected(ReferenceQueue)} removes it.
+     *
+     * @param observer       identity of the subscription, held weakly
+     * @param delivery       null to receive events directly in {@link #onEvent(Object)}
+     * @param referenceQueue queue collected observers are reported to
+     */
+    protected EventSubscription(Object observer, EventDelivery<T> delivery, ReferenceQueue<Object> referenceQueue) {
+        this.observer = new WeakObserver(observer, referenceQueue, this);
+        this.delivery = delivery;
+    }
+
+    /**
+     * Called from the dispatch loop when subscription has no {@link EventDelivery}.
+     */
+    protected abstract void onEvent(T event);
+
+    /**
+     * Called once, after subscription was removed from its dispatcher.
+     */
+    protected void onRemoved() {
+    }
+
+    /**
+     * Keeps events dispatched while subscription is inactive and delivers them in order as soon as it
+     * becomes active again. Every event is still delivered at most once. Must be called before the
+     * subscription is added to a dispatcher.
+     *
+     * @param capacity  maximum number of pending events, the oldest one is dropped when buffer is full
+     * @param ttlMillis time after which pending event is dropped instead of delivered, 0 for no limit
+     * @throws IllegalStateException if subscription was already added to a dispatcher
+     */
+    public final void setPendingBuffer(int capacity, long ttlMillis) {
+        if (dispatcher != null) {
+            throw new IllegalStateException("Pending buffer must be set before subscription is added");
+        }
+        pendingBuffer = new PendingEventBuffer<>(capacity, TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+    }
+
+    /**
+     * Limits subscription to events dispatched for the given key, see {@link EventDispatcher#dispatch(Object, Object)}.
+     * Keys are compared with {@link Object#equals(Object)}. Must be called before the subscription is added
+     * to a dispatcher.
+     *
+     * @param key key of events subscription receives, null to receive events regardless of their key
+     * @throws IllegalStateException if subscription was already added to a dispatcher
+     */
+    public final void setKey(Object key) {
+        if (dispatcher != null) {
+            throw new IllegalStateException("Key must be set before subscription is added");
+        }
+        this.key = key;
+    }
+
+    public final Object getKey() {
+        return key;
+    }
+
+    /**
+     * Subscriptions with higher priority receive events first, subscriptions with equal priority are
+     * called in registration order. Must be called before the subscription is added to a dispatcher.
+     *
+     * @param priority priority of the subscription, 0 by default
+     * @throws IllegalStateException if subscription was already added to a dispatcher
+     */
+    public final void setPriority(int priority) {
+        if (dispatcher != null) {
+            throw new IllegalStateException("Priority must be set before subscription is added");
+        }
+        this.priority = priority;
+    }
+
+    public final int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return number of events waiting for subscription to become active
+     */
+    public final int getPendingCount() {
+        return pendingBuffer == null ? 0 : pendingBuffer.size();
+    }
+
+    /**
+     * @return number of pending events dropped because buffer was full or they expired
+     */
+    public final long getDroppedPendingCount() {
+        return pendingBuffer == null ? 0 : pendingBuffer.getDroppedCount();
+    }
+
+    /**
+     * @return the observer, null if it was held weakly and is already collected
+     */
+    public final Object getObserver() {
+        return observer instanceof WeakObserver ? ((WeakObserver) observer).get() : observer;
+    }
+
+    public final boolean isObserverWeak() {
+        return observer instanceof WeakObserver;
+    }
+
+    /**
+     * @return delivery events are handed to or null if they are delivered directly to {@link #onEvent(Object)}
+     */
+    public final EventDelivery<T> getDelivery() {
+        return delivery;
+    }
+
+    public final boolean isActive() {
+        return active;
+    }
+
+    public final boolean isRemoved() {
+        return removed;
+    }
+
+    /**
+     * Activates or deactivates subscription. Has no effect before subscription is added to a
+     * dispatcher or after it is removed. Must be called on the main thread.
+     */
+    public final void setActive(boolean active) {
+        if (dispatcher != null && !removed) {
+            dispatcher.activeStateChanged(this, active);
+        }
+    }
+
+    final void dispatch(T event) {
+        if (delivery == null) {
+            onEvent(event);
+        } else {
+            delivery.deliver(event);
+        }
+    }
+
+    final void notifyActiveStateChanged() {
+        if (delivery != null) {
+            delivery.onActiveStateChanged(active);
+        }
+    }
+
+    final void markRemoved() {
+        removed = true;
+        if (pendingBuffer != null) {
+            pendingBuffer.clear();
+        }
+        if (delivery != null) {
+            delivery.close();
+        }
+        onRemoved();
+    }
+
+    /**
+     * Weak reference to an observer that knows its subscription, so it can be removed after the observer is collected.
+     */
+    static final class WeakObserver extends WeakReference<Object> {
+        final EventSubscription<?> subscription;
+
+        WeakObserver(Object observer, ReferenceQueue<Object> queue, EventSubscription<?> subscription) {
+            super(observer, queue);
+            this.subscription = subscription;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.rugovit.eventlivedata.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free queue of posted events that keeps only the latest event per key.
+ * <p>
+ * Producers replace the pending event of a key in a concurrent map. Only the producer that added a key
+ * which was not pending appends it to the order queue, so every pending key is queued exactly once, in
+ * the order it was first posted, and the queue never holds more elements than there are distinct keys.
+ * Main thread is the only consumer.
+ * <p>
+ * Null keys are allowed, null events are not.
+ */
+public final class KeyCoalescingPostQueue<T> {
+
+    private static final Object NULL_KEY = new Object();
+
+    private final ConcurrentHashMap<Object, T> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Object> order = new ConcurrentLinkedQueue<>();
+    // counted after the key is queued, so a consumer never polls more keys than are visible
+    private final AtomicInteger keyCount = new AtomicInteger();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * Can be called from any thread.
+     *
+     * @return true if the key was not pending, false if its pending event was replaced
+     */
+    public boolean offer(Object key, T event) {
+        if (event == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: event");
+        }
+        Object mapKey = key == null ? NULL_KEY : key;
+        if (pending.put(mapKey, event) != null) {
+            coalescedCount.incrementAndGet();
+            return false;
+        }
+        order.offer(mapKey);
+        keyCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Removes the key that was posted first and returns its latest event. Call at most {@link #size()}
+     * times per drain, keys posted again after they were polled are queued behind the others.
+     *
+     * @return latest event of the first posted key or null if nothing is pending
+     */
+    public T poll() {
+        Object key = order.poll();
+        if (key == null) {
+            return null;
+        }
+        keyCount.decrementAndGet();
+        return pending.remove(key);
+    }
+
+    /**
+     * @return number of pending keys
+     */
+    public int size() {
+        return keyCount.get();
+    }
+
+    public boolean isEmpty() {
+        return keyCount.get() == 0;
+    }
+
+    /**
+     * @return number of events replaced by a later event of the same key since creation
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+}
@@ -0,0 +1,151 @@
+package com.rugovit.eventlivedata.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Primitive counterpart of {@link EventPostQueue}: bounded lock-free FIFO queue of {@code long} values,
+ * so posting primitive events from background threads never boxes them. Int and boolean events are
+ * widened to long.
+ * <p>
+ * Same Vyukov bounded queue as {@link EventPostQueue}. Values are kept in a plain array, they are
+ * written before the slot sequence is published and read after it is observed, so the sequence
+ * array provides the ordering.
+ * <p>
+ * Capacity is rounded up to the next power of two.
+ */
+public final class LongPostQueue {
+
+    /**
+     * Receives values removed by {@link #drain(Consumer, int)}.
+     */
+    public interface Consumer {
+
+        void accept(long value);
+    }
+
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+    private final long[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public LongPostQueue(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: overflowPolicy");
+        }
+        if (overflowPolicy == OverflowPolicy.CONFLATE) {
+            throw new IllegalArgumentException("CONFLATE is not supported by the post queue");
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.buffer = new long[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds value to the end of the queue, applying {@link OverflowPolicy} if the queue is full.
+     *
+     * @return true if value was added
+     */
+    public boolean offer(long value) {
+        while (!tryOffer(value)) {
+            if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            if (claimHead() >= 0) {
+                droppedCount.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes up to limit oldest values and passes them to the consumer in order.
+     *
+     * @return number of values removed
+     */
+    public int drain(Consumer consumer, int limit) {
+        int drained = 0;
+        while (drained < limit) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    long value = buffer[index];
+                    sequences.lazySet(index, position + mask + 1);
+                    drained++;
+                    consumer.accept(value);
+                }
+            } else if (difference < 0) {
+                break;
+            }
+        }
+        return drained;
+    }
+
+    public boolean isEmpty() {
+        long position = head.get();
+        return sequences.get((int) position & mask) - (position + 1) < 0;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Removes the oldest value without reading it.
+     *
+     * @return position of removed value or -1 if queue is empty
+     */
+    private long claimHead() {
+        for (; ; ) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    sequences.lazySet(index, position + mask + 1);
+                    return position;
+                }
+            } else if (difference < 0) {
+                return -1;
+            }
+        }
+    }
+
+    private boolean tryOffer(long value) {
+        for (; ; ) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = value;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.rugovit.eventlivedata.core;
+
+/**
+ * Abstraction of the thread on which events are dispatched. On Android it is backed by the main
+ * looper, on a plain JVM any single thread can stand in for it.
+ */
+public interface MainThreadScheduler {
+
+    /**
+     * @return true if called on the thread events are dispatched on
+     */
+    boolean isMainThread();
+
+    /**
+     * Runs the task on the main thread some time after this call, never synchronously.
+     */
+    void post(Runnable task);
+}
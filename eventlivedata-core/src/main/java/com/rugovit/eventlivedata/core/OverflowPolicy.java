@@ -0,0 +1,23 @@
+package com.rugovit.eventlivedata.core;
+
+/**
+ * Defines what happens with an event when a bounded event queue is already full.
+ *
+ * @see EventPostQueue
+ * @see BackpressureStrategy
+ */
+public enum OverflowPolicy {
+    /**
+     * New event is rejected and counted as dropped, events already in the queue are kept.
+     */
+    DROP_NEWEST,
+    /**
+     * Oldest event in the queue is removed and counted as dropped to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * Only the newest event is kept pending, every new event replaces the one that is still waiting.
+     * Supported by {@link EventMailbox} only, same as {@link BackpressureStrategy#latest()}.
+     */
+    CONFLATE
+}
@@ -0,0 +1,173 @@
+package com.rugovit.eventlivedata.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers one event to many thread-safe, order independent observers in parallel.
+ * <p>
+ * Every observer gets a delivery from {@link #newDelivery(EventObserver)}. During a dispatch loop,
+ * opened with {@link #begin()} and closed with {@link #end(Object)}, deliveries only collect their
+ * observers, so the main thread pays for one list add per observer. {@link #end(Object)} splits the
+ * collected observers into at most parallelism chunks and submits one task per chunk.
+ * <p>
+ * With a completion barrier the next event is fanned out only after every observer finished the
+ * previous one, without blocking the main thread: waiting rounds are queued and submitted by the
+ * task that completes the previous round. Without it rounds overlap and observers can receive
+ * events concurrently and out of order.
+ */
+public final class ParallelFanOut<T> {
+
+    private final Executor executor;
+    private final int parallelism;
+    private final boolean barrier;
+    // rounds collected by nested dispatch loops, innermost last, used on the main thread only
+    private final ArrayList<ArrayList<EventObserver<? super T>>> collecting = new ArrayList<>();
+    private final ArrayList<ArrayList<EventObserver<? super T>>> spareLists = new ArrayList<>();
+    private final ArrayDeque<Round> waiting = new ArrayDeque<>();
+    private boolean running;
+
+    /**
+     * @param executor    pool observers are called on
+     * @param parallelism maximum number of tasks one event is split into
+     * @param barrier     true to start next event only after all observers finished the previous one
+     */
+    public ParallelFanOut(Executor executor, int parallelism, boolean barrier) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: executor");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, was " + parallelism);
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.barrier = barrier;
+    }
+
+    /**
+     * @return delivery that hands events of its subscription to this fan-out
+     */
+    public EventDelivery<T> newDelivery(final EventObserver<? super T> observer) {
+        return new EventDelivery<T>() {
+            @Override
+            protected void deliver(T event) {
+                collect(observer, event);
+            }
+        };
+    }
+
+    /**
+     * Opens collection for one dispatch loop, must be paired with {@link #end(Object)}. Called on the main thread.
+     */
+    public void begin() {
+        int spare = spareLists.size();
+        collecting.add(spare == 0 ? new ArrayList<EventObserver<? super T>>() : spareLists.remove(spare - 1));
+    }
+
+    /**
+     * Fans the event out to observers collected since the matching {@link #begin()}. Called on the main thread.
+     */
+    public void end(T event) {
+        ArrayList<EventObserver<? super T>> observers = collecting.remove(collecting.size() - 1);
+        if (!observers.isEmpty()) {
+            EventObserver<? super T>[] targets = observers.toArray(ParallelFanOut.<T>newObserverArray(observers.size()));
+            PooledEvent.retainIfPooled(event);
+            submit(new Round(event, targets));
+            observers.clear();
+        }
+        spareLists.add(observers);
+    }
+
+    private void collect(EventObserver<? super T> observer, T event) {
+        if (collecting.isEmpty()) {
+            // delivery outside of a dispatch loop, like flush of a pending buffer
+            EventObserver<? super T>[] single = newObserverArray(1);
+            single[0] = observer;
+            PooledEvent.retainIfPooled(event);
+            submit(new Round(event, single));
+            return;
+        }
+        collecting.get(collecting.size() - 1).add(observer);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> EventObserver<? super T>[] newObserverArray(int size) {
+        return (EventObserver<? super T>[]) new EventObserver[size];
+    }
+
+    private void submit(Round round) {
+        if (barrier) {
+            synchronized (this) {
+                if (running) {
+                    waiting.add(round);
+                    return;
+                }
+                running = true;
+            }
+        }
+        round.start();
+    }
+
+    private void onRoundCompleted(Round round) {
+        PooledEvent.releaseIfPooled(round.event);
+        if (!barrier) {
+            return;
+        }
+        Round next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                running = false;
+                return;
+            }
+        }
+        next.start();
+    }
+
+    /**
+     * One event and the observers it goes to.
+     */
+    private final class Round {
+        final T event;
+        final EventObserver<? super T>[] observers;
+        final AtomicInteger remainingChunks = new AtomicInteger();
+
+        Round(T event, EventObserver<? super T>[] observers) {
+            this.event = event;
+            this.observers = observers;
+        }
+
+        void start() {
+            int chunks = Math.min(parallelism, observers.length);
+            remainingChunks.set(chunks);
+            for (int i = 0; i < chunks; i++) {
+                final int from = (int) ((long) observers.length * i / chunks);
+                final int to = (int) ((long) observers.length * (i + 1) / chunks);
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        RuntimeException failure = null;
+                        for (int j = from; j < to; j++) {
+                            try {
+                                observers[j].onEvent(event);
+                            } catch (RuntimeException e) {
+                                // other observers of the chunk still get the event, first failure is rethrown
+                                if (failure == null) {
+                                    failure = e;
+                                }
+                            }
+                        }
+                        if (remainingChunks.decrementAndGet() == 0) {
+                            onRoundCompleted(Round.this);
+                        }
+                        if (failure != null) {
+                            throw failure;
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
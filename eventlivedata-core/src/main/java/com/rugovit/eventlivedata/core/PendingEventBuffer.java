@@ -0,0 +1,96 @@
+package com.rugovit.eventlivedata.core;
+
+/**
+ * Events dispatched while a subscription was inactive, kept until it becomes active again.
+ * <p>
+ * Ring buffer preallocated to its maximum size, when it is full the oldest event is dropped. With a
+ * time to live every event also stores its dispatch time and expired events are skipped on flush.
+ * Used only on the main thread.
+ */
+final class PendingEventBuffer<T> {
+
+    private final Object[] events;
+    private final long[] dispatchNanos;
+    private final long ttlNanos;
+    private int head;
+    private int size;
+    private long droppedCount;
+
+    /**
+     * @param ttlNanos time to live of an event, 0 to keep events until they are flushed
+     */
+    PendingEventBuffer(int capacity, long ttlNanos) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Pending buffer capacity must be positive, was " + capacity);
+        }
+        if (ttlNanos < 0) {
+            throw new IllegalArgumentException("Pending event time to live must not be negative, was " + ttlNanos);
+        }
+        this.events = new Object[capacity];
+        this.dispatchNanos = ttlNanos > 0 ? new long[capacity] : null;
+        this.ttlNanos = ttlNanos;
+    }
+
+    boolean hasTimeToLive() {
+        return ttlNanos > 0;
+    }
+
+    void add(T event, long nowNanos) {
+        if (size == events.length) {
+            droppedCount++;
+            PooledEvent.releaseIfPooled(events[head]);
+            events[head] = null;
+            head = (head + 1) % events.length;
+            size--;
+        }
+        PooledEvent.retainIfPooled(event);
+        int tail = (head + size) % events.length;
+        events[tail] = event;
+        if (dispatchNanos != null) {
+            dispatchNanos[tail] = nowNanos;
+        }
+        size++;
+    }
+
+    /**
+     * Delivers pending events in order while subscription stays active, events dispatched by the
+     * subscription itself are added to the active loop and never to this buffer.
+     */
+    @SuppressWarnings("unchecked")
+    void flush(EventSubscription<T> subscription) {
+        long now = dispatchNanos != null ? System.nanoTime() : 0;
+        while (size > 0 && subscription.active) {
+            T event = (T) events[head];
+            boolean expired = dispatchNanos != null && now - dispatchNanos[head] > ttlNanos;
+            events[head] = null;
+            head = (head + 1) % events.length;
+            size--;
+            try {
+                if (expired) {
+                    droppedCount++;
+                } else {
+                    subscription.dispatch(event);
+                }
+            } finally {
+                PooledEvent.releaseIfPooled(event);
+            }
+        }
+    }
+
+    void clear() {
+        while (size > 0) {
+            PooledEvent.releaseIfPooled(events[head]);
+            events[head] = null;
+            head = (head + 1) % events.length;
+            size--;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getDroppedCount() {
+        return droppedCount;
+    }
+}
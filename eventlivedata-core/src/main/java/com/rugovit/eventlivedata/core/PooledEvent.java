@@ -0,0 +1,95 @@
+package com.rugovit.eventlivedata.core;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Reference counted event payload that is returned to its {@link EventPool} instead of being
+ * garbage collected.
+ * <p>
+ * Payload obtained from the pool holds one reference, which is handed over to the event source with
+ * setValue or postValue and released after the event was delivered to every active observer. Observer
+ * that keeps the payload after its callback returns has to call {@link #retain()} during the callback
+ * and {@link #release()} when done with it. Deliveries that hand the event over to another thread or
+ * to a later frame retain it themselves.
+ * <p>
+ * Reference counting is thread safe, payload fields are not, they must not be modified after the
+ * payload was posted.
+ */
+public abstract class PooledEvent {
+
+    private static final AtomicIntegerFieldUpdater<PooledEvent> REF_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(PooledEvent.class, "refCount");
+
+    private volatile int refCount;
+    EventPool<?> pool;
+
+    /**
+     * Adds one reference.
+     *
+     * @return this payload
+     * @throws IllegalStateException if payload was already returned to the pool
+     */
+    public final PooledEvent retain() {
+        for (; ; ) {
+            int count = refCount;
+            if (count <= 0) {
+                throw new IllegalStateException("Cannot retain recycled event " + this);
+            }
+            if (REF_COUNT.compareAndSet(this, count, count + 1)) {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * Removes one reference, the last one returns payload to the pool.
+     *
+     * @throws IllegalStateException if payload was released more times than it was retained
+     */
+    public final void release() {
+        int count = REF_COUNT.decrementAndGet(this);
+        if (count > 0) {
+            return;
+        }
+        if (count < 0) {
+            REF_COUNT.incrementAndGet(this);
+            throw new IllegalStateException("Event released more times than retained " + this);
+        }
+        onRecycle();
+        if (pool != null) {
+            pool.recycle(this);
+        }
+    }
+
+    public final int getRefCount() {
+        return refCount;
+    }
+
+    /**
+     * Called before payload is returned to the pool, clear references held by the payload here.
+     */
+    protected void onRecycle() {
+    }
+
+    final void setReferenced() {
+        refCount = 1;
+    }
+
+    /**
+     * Retains the event if it is a {@link PooledEvent}, used by code that handles events of any type.
+     */
+    public static void retainIfPooled(Object event) {
+        if (event instanceof PooledEvent) {
+            ((PooledEvent) event).retain();
+        }
+    }
+
+    /**
+     * Releases the event if it is a {@link PooledEvent}, used by code that handles events of any type.
+     */
+    public static void releaseIfPooled(Object event) {
+        if (event instanceof PooledEvent) {
+            ((PooledEvent) event).release();
+        }
+    }
+}
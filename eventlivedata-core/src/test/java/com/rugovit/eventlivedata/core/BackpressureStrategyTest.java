@@ -0,0 +1,45 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BackpressureStrategyTest {
+
+    @Test
+    public void bufferDropsOldestByDefault() {
+        BackpressureStrategy strategy = BackpressureStrategy.buffer(64);
+
+        assertEquals(BackpressureStrategy.Kind.BUFFER, strategy.getKind());
+        assertEquals(64, strategy.getCapacity());
+        assertEquals(OverflowPolicy.DROP_OLDEST, strategy.getOverflowPolicy());
+        assertEquals("BUFFER(64, DROP_OLDEST)", strategy.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bufferRejectsConflate() {
+        BackpressureStrategy.buffer(8, OverflowPolicy.CONFLATE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveCapacityIsRejected() {
+        BackpressureStrategy.error(0);
+    }
+
+    @Test
+    public void overflowPolicyMapsToStrategy() {
+        assertEquals(BackpressureStrategy.Kind.DROP_NEWEST, BackpressureStrategy.of(OverflowPolicy.DROP_NEWEST, 4).getKind());
+        assertEquals(BackpressureStrategy.Kind.DROP_OLDEST, BackpressureStrategy.of(OverflowPolicy.DROP_OLDEST, 4).getKind());
+        BackpressureStrategy latest = BackpressureStrategy.of(OverflowPolicy.CONFLATE, 4);
+        assertEquals(BackpressureStrategy.Kind.LATEST, latest.getKind());
+        assertEquals(1, latest.getCapacity());
+        assertNull(latest.getOverflowPolicy());
+        assertEquals("LATEST", latest.toString());
+    }
+
+    @Test
+    public void errorStrategyNamesItsCapacity() {
+        assertEquals("ERROR(3)", BackpressureStrategy.error(3).toString());
+    }
+}
@@ -0,0 +1,260 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EventDispatcherTest {
+
+    private final List<String> calls = new ArrayList<>();
+    private EventDispatcher<String> dispatcher;
+
+    @Before
+    public void setUp() {
+        dispatcher = new EventDispatcher<>(new TestMainThread(), null);
+    }
+
+    private RecordingSubscription<String> addActive(final String name) {
+        RecordingSubscription<String> subscription = new RecordingSubscription<String>() {
+            @Override
+            protected void onEvent(String event) {
+                super.onEvent(event);
+                calls.add(name);
+            }
+        };
+        dispatcher.add(subscription);
+        subscription.setActive(true);
+        return subscription;
+    }
+
+    @Test
+    public void dispatchesInRegistrationOrder() {
+        addActive("a");
+        addActive("b");
+        addActive("c");
+
+        assertEquals(3, dispatcher.dispatch("event"));
+        assertEquals(Arrays.asList("a", "b", "c"), calls);
+    }
+
+    @Test
+    public void orderIsKeptWhenSubscriptionIsReactivated() {
+        RecordingSubscription<String> a = addActive("a");
+        addActive("b");
+        a.setActive(false);
+        a.setActive(true);
+
+        dispatcher.dispatch("event");
+        assertEquals(Arrays.asList("a", "b"), calls);
+    }
+
+    @Test
+    public void subscriptionRemovedDuringDispatchMissesTheEvent() {
+        final RecordingSubscription<String> second = new RecordingSubscription<>();
+        RecordingSubscription<String> first = new RecordingSubscription<String>() {
+            @Override
+            protected void onEvent(String event) {
+                super.onEvent(event);
+                dispatcher.remove(second.getObserver());
+            }
+        };
+        dispatcher.add(first);
+        first.setActive(true);
+        dispatcher.add(second);
+        second.setActive(true);
+        RecordingSubscription<String> third = addActive("third");
+
+        assertEquals(2, dispatcher.dispatch("event"));
+        assertEquals(Collections.singletonList("event"), first.events);
+        assertTrue(second.events.isEmpty());
+        assertEquals(Collections.singletonList("event"), third.events);
+        assertTrue(second.isRemoved());
+    }
+
+    @Test
+    public void subscriptionCanRemoveItselfDuringDispatch() {
+        RecordingSubscription<String> self = new RecordingSubscription<String>() {
+            @Override
+            protected void onEvent(String event) {
+                super.onEvent(event);
+                dispatcher.remove(getObserver());
+            }
+        };
+        dispatcher.add(self);
+        self.setActive(true);
+        RecordingSubscription<String> next = addActive("next");
+
+        dispatcher.dispatch("first");
+        dispatcher.dispatch("second");
+        assertEquals(Collections.singletonList("first"), self.events);
+        assertEquals(Arrays.asList("first", "second"), next.events);
+    }
+
+    @Test
+    public void subscriptionAddedDuringDispatchReceivesOnlyLaterEvents() {
+        final RecordingSubscription<String> added = new RecordingSubscription<>();
+        RecordingSubscription<String> adding = new RecordingSubscription<String>() {
+            @Override
+            protected void onEvent(String event) {
+                super.onEvent(event);
+                if (dispatcher.find(added.getObserver()) == null) {
+                    dispatcher.add(added);
+                    added.setActive(true);
+                }
+            }
+        };
+        dispatcher.add(adding);
+        adding.setActive(true);
+
+        dispatcher.dispatch("first");
+        dispatcher.dispatch("second");
+        assertEquals(Collections.singletonList("second"), added.events);
+    }
+
+    @Test
+    public void findAndRemoveUseObserverIdentity() {
+        RecordingSubscription<String> subscription = addActive("a");
+
+        assertSame(subscription, dispatcher.find(subscription.getObserver()));
+        assertNull(dispatcher.find(new Object()));
+        assertNull(dispatcher.remove(new Object()));
+        assertSame(subscription, dispatcher.remove(subscription.getObserver()));
+        assertFalse(dispatcher.hasSubscriptions());
+        assertEquals(0, dispatcher.dispatch("event"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addingRegisteredSubscriptionThrows() {
+        RecordingSubscription<String> subscription = addActive("a");
+        dispatcher.add(subscription);
+    }
+
+    @Test
+    public void inactiveSubscriptionsAreSkipped() {
+        RecordingSubscription<String> inactive = new RecordingSubscription<>();
+        dispatcher.add(inactive);
+        RecordingSubscription<String> active = addActive("active");
+
+        assertEquals(1, dispatcher.dispatch("first"));
+        inactive.setActive(true);
+        active.setActive(false);
+        assertEquals(1, dispatcher.dispatch("second"));
+
+        assertEquals(Collections.singletonList("second"), inactive.events);
+        assertEquals(Collections.singletonList("first"), active.events);
+        assertEquals(1, dispatcher.getActiveCount());
+        assertEquals(2, dispatcher.getSubscriptionCount());
+    }
+
+    @Test
+    public void subscriptionDeactivatedDuringDispatchMissesTheEvent() {
+        final RecordingSubscription<String> second = new RecordingSubscription<>();
+        RecordingSubscription<String> first = new RecordingSubscription<String>() {
+            @Override
+            protected void onEvent(String event) {
+                super.onEvent(event);
+                second.setActive(false);
+            }
+        };
+        dispatcher.add(first);
+        first.setActive(true);
+        dispatcher.add(second);
+        second.setActive(true);
+
+        assertEquals(1, dispatcher.dispatch("event"));
+        assertTrue(second.events.isEmpty());
+    }
+
+    @Test
+    public void activeStateListenerIsNotifiedOnFirstAndLastActiveSubscription() {
+        final List<String> states = new ArrayList<>();
+        dispatcher = new EventDispatcher<>(new TestMainThread(), new EventDispatcher.ActiveStateListener() {
+            @Override
+            public void onActive() {
+                states.add("active");
+            }
+
+            @Override
+            public void onInactive() {
+                states.add("inactive");
+            }
+        });
+        RecordingSubscription<String> a = addActive("a");
+        RecordingSubscription<String> b = addActive("b");
+        a.setActive(false);
+        assertEquals(Collections.singletonList("active"), states);
+
+        dispatcher.remove(b.getObserver());
+        assertEquals(Arrays.asList("active", "inactive"), states);
+
+        a.setActive(true);
+        EventSubscription<String>[] all = dispatcher.getSubscriptionSnapshot();
+        dispatcher.removeAll(all);
+        assertEquals(Arrays.asList("active", "inactive", "active", "inactive"), states);
+        assertFalse(dispatcher.hasSubscriptions());
+    }
+
+    @Test
+    public void activeVersionChangesOnlyWithActiveSet() {
+        RecordingSubscription<String> subscription = new RecordingSubscription<>();
+        dispatcher.add(subscription);
+        long version = dispatcher.getActiveVersion();
+        subscription.setActive(false);
+        assertEquals(version, dispatcher.getActiveVersion());
+
+        subscription.setActive(true);
+        assertTrue(dispatcher.getActiveVersion() != version);
+        assertEquals(1, dispatcher.getActiveSnapshot().length);
+    }
+
+    @Test
+    public void removedSubscriptionCannotBeActivated() {
+        RecordingSubscription<String> subscription = addActive("a");
+        dispatcher.remove(subscription.getObserver());
+        subscription.setActive(true);
+
+        assertEquals(0, dispatcher.getActiveCount());
+        assertEquals(0, dispatcher.dispatch("event"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullSchedulerIsRejected() {
+        new EventDispatcher<String>(null, null);
+    }
+
+    @Test
+    public void assertMainThreadUsesScheduler() {
+        final boolean[] mainThread = {true};
+        dispatcher = new EventDispatcher<>(new MainThreadScheduler() {
+            @Override
+            public boolean isMainThread() {
+                return mainThread[0];
+            }
+
+            @Override
+            public void post(Runnable task) {
+                task.run();
+            }
+        }, null);
+        dispatcher.assertMainThread("dispatch");
+
+        mainThread[0] = false;
+        try {
+            dispatcher.assertMainThread("dispatch");
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+            assertEquals("Cannot invoke dispatch on a background thread", expected.getMessage());
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EventMailboxTest {
+
+    private final List<String> received = new ArrayList<>();
+    private final EventObserver<String> observer = new EventObserver<String>() {
+        @Override
+        public void onEvent(String event) {
+            received.add(event);
+        }
+    };
+    private final ManualExecutor executor = new ManualExecutor();
+
+    @Test
+    public void eventsAreDeliveredInOrderOnTheExecutor() {
+        EventMailbox<String> mailbox = new EventMailbox<>(observer, executor, 4, OverflowPolicy.DROP_OLDEST);
+        mailbox.deliver("a");
+        mailbox.deliver("b");
+
+        assertTrue(received.isEmpty());
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals(Arrays.asList("a", "b"), received);
+    }
+
+    @Test
+    public void drainIsScheduledAgainAfterMailboxWasDrained() {
+        EventMailbox<String> mailbox = new EventMailbox<>(observer, executor, 4, OverflowPolicy.DROP_OLDEST);
+        mailbox.deliver("a");
+        executor.runAll();
+        mailbox.deliver("b");
+
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals(Arrays.asList("a", "b"), received);
+    }
+
+    @Test
+    public void dropOldestKeepsNewestEvents() {
+        EventMailbox<String> mailbox = new EventMailbox<>(observer, executor, 2, OverflowPolicy.DROP_OLDEST);
+        mailbox.deliver("a");
+        mailbox.deliver("b");
+        mailbox.deliver("c");
+        executor.runAll();
+
+        assertEquals(Arrays.asList("b", "c"), received);
+        assertEquals(1, mailbox.getDroppedCount());
+    }
+
+    @Test
+    public void dropNewestKeepsPendingEvents() {
+        EventMailbox<String> mailbox = new EventMailbox<>(observer, executor, 2, OverflowPolicy.DROP_NEWEST);
+        mailbox.deliver("a");
+        mailbox.deliver("b");
+        mailbox.deliver("c");
+        executor.runAll();
+
+        assertEquals(Arrays.asList("a", "b"), received);
+        assertEquals(1, mailbox.getDroppedCount());
+    }
+
+    @Test
+    public void conflateKeepsOnlyLatestEvent() {
+        EventMailbox<String> mailbox = new EventMailbox<>(observer, executor, 8, OverflowPolicy.CONFLATE);
+        mailbox.deliver("a");
+        mailbox.deliver("b");
+        mailbox.deliver("c");
+        executor.runAll();
+
+        assertEquals(Collections.singletonList("c"), received);
+        assertEquals(2, mailbox.getDroppedCount());
+    }
+
+    @Test
+    public void closeDiscardsPendingEvents() {
+        EventMailbox<String> mailbox = new EventMailbox<>(observer, executor, 4, OverflowPolicy.DROP_OLDEST);
+        mailbox.deliver("a");
+        mailbox.close();
+        executor.runAll();
+
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void mailboxDeliversThroughDispatcher() {
+        EventDispatcher<String> dispatcher = new EventDispatcher<>(new TestMainThread(), null);
+        RecordingSubscription<String> subscription = new RecordingSubscription<>(
+                new EventMailbox<>(observer, executor, 4, OverflowPolicy.DROP_OLDEST));
+        dispatcher.add(subscription);
+        subscription.setActive(true);
+
+        assertEquals(1, dispatcher.dispatch("event"));
+        assertTrue(subscription.events.isEmpty());
+        executor.runAll();
+        assertEquals(Collections.singletonList("event"), received);
+    }
+
+    @Test
+    public void bufferGrowsUpToCapacityThenAppliesOverflowPolicy() {
+        EventMailbox<String> mailbox = new EventMailbox<>(observer, executor, BackpressureStrategy.buffer(40, OverflowPolicy.DROP_NEWEST));
+        for (int i = 0; i < 50; i++) {
+            mailbox.deliver(String.valueOf(i));
+        }
+        executor.runAll();
+
+        assertEquals(40, received.size());
+        assertEquals("39", received.get(39));
+        assertEquals(10, mailbox.getDroppedCount());
+    }
+
+    @Test
+    public void errorStrategyFailsMailboxAndReportsToHandler() {
+        final List<RuntimeException> failures = new ArrayList<>();
+        EventMailbox<String> mailbox = new EventMailbox<>(observer, executor, BackpressureStrategy.error(2), new EventMailbox.FailureHandler() {
+            @Override
+            public void onMailboxFailed(EventMailbox<?> failed, RuntimeException error) {
+                failures.add(error);
+            }
+        });
+        mailbox.deliver("a");
+        mailbox.deliver("b");
+        mailbox.deliver("c");
+        mailbox.deliver("d");
+        executor.runAll();
+
+        assertTrue(mailbox.isFailed());
+        assertTrue(received.isEmpty());
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0) instanceof EventBackpressureException);
+        assertEquals(4, mailbox.getDroppedCount());
+    }
+
+    @Test(expected = EventBackpressureException.class)
+    public void errorStrategyWithoutHandlerThrowsFromDelivery() {
+        EventMailbox<String> mailbox = new EventMailbox<>(observer, executor, BackpressureStrategy.error(1));
+        mailbox.deliver("a");
+        mailbox.deliver("b");
+    }
+
+    @Test
+    public void rejectedDrainFailsMailbox() {
+        final List<RuntimeException> failures = new ArrayList<>();
+        Executor rejecting = new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                throw new IllegalStateException("shut down");
+            }
+        };
+        EventMailbox<String> mailbox = new EventMailbox<>(observer, rejecting, BackpressureStrategy.buffer(4), new EventMailbox.FailureHandler() {
+            @Override
+            public void onMailboxFailed(EventMailbox<?> failed, RuntimeException error) {
+                failures.add(error);
+            }
+        });
+        mailbox.deliver("a");
+        mailbox.deliver("b");
+
+        assertTrue(mailbox.isFailed());
+        assertEquals(1, failures.size());
+        assertEquals("shut down", failures.get(0).getMessage());
+        assertEquals(2, mailbox.getDroppedCount());
+    }
+
+    @Test
+    public void eventsAfterObserverExceptionAreDelivered() {
+        EventMailbox<String> mailbox = new EventMailbox<>(failingOn("bad"), executor, BackpressureStrategy.buffer(4));
+        mailbox.deliver("bad");
+        mailbox.deliver("queued");
+        try {
+            executor.runAll();
+            fail("observer failure expected");
+        } catch (IllegalStateException expected) {
+            assertEquals("bad", expected.getMessage());
+        }
+        executor.runAll();
+        mailbox.deliver("later");
+        executor.runAll();
+
+        assertFalse(mailbox.isFailed());
+        assertEquals(Arrays.asList("queued", "later"), received);
+    }
+
+    @Test
+    public void rejectedDrainAfterObserverExceptionIsReportedOnNextDelivery() {
+        final List<RuntimeException> failures = new ArrayList<>();
+        final boolean[] rejecting = new boolean[1];
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                if (rejecting[0]) {
+                    throw new IllegalStateException("shut down");
+                }
+                EventMailboxTest.this.executor.execute(task);
+            }
+        };
+        EventMailbox<String> mailbox = new EventMailbox<>(failingOn("bad"), executor, BackpressureStrategy.buffer(4), new EventMailbox.FailureHandler() {
+            @Override
+            public void onMailboxFailed(EventMailbox<?> failed, RuntimeException error) {
+                failures.add(error);
+            }
+        });
+        mailbox.deliver("bad");
+        mailbox.deliver("queued");
+        rejecting[0] = true;
+        try {
+            this.executor.runAll();
+            fail("observer failure expected");
+        } catch (IllegalStateException expected) {
+            assertEquals("bad", expected.getMessage());
+        }
+        assertTrue(mailbox.isFailed());
+        assertTrue(failures.isEmpty());
+
+        mailbox.deliver("later");
+        assertEquals(1, failures.size());
+        assertEquals("shut down", failures.get(0).getMessage());
+        assertEquals(2, mailbox.getDroppedCount());
+        assertTrue(received.isEmpty());
+    }
+
+    private EventObserver<String> failingOn(final String failing) {
+        return new EventObserver<String>() {
+            @Override
+            public void onEvent(String event) {
+                if (failing.equals(event)) {
+                    throw new IllegalStateException(event);
+                }
+                received.add(event);
+            }
+        };
+    }
+
+    /**
+     * Runs submitted tasks only when asked to.
+     */
+    private static final class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EventPoolTest {
+
+    private EventPool<Payload> pool;
+
+    @Before
+    public void setUp() {
+        pool = new EventPool<>(2, new EventPool.Factory<Payload>() {
+            @Override
+            public Payload create() {
+                return new Payload();
+            }
+        });
+    }
+
+    @Test
+    public void releasedPayloadIsReused() {
+        Payload first = pool.obtain();
+        assertEquals(1, first.getRefCount());
+        first.value = "a";
+        first.release();
+
+        Payload second = pool.obtain();
+        assertSame(first, second);
+        assertNull(second.value);
+        assertEquals(1, second.getRefCount());
+        assertEquals(1, pool.getCreatedCount());
+    }
+
+    @Test
+    public void retainedPayloadIsReturnedAfterLastRelease() {
+        Payload payload = pool.obtain();
+        payload.retain();
+        payload.release();
+
+        assertNotSame(payload, pool.obtain());
+        payload.release();
+        assertSame(payload, pool.obtain());
+    }
+
+    @Test
+    public void fullPoolLeavesPayloadToGarbageCollector() {
+        Payload a = pool.obtain();
+        Payload b = pool.obtain();
+        Payload c = pool.obtain();
+        a.release();
+        b.release();
+        c.release();
+
+        assertSame(a, pool.obtain());
+        assertSame(b, pool.obtain());
+        pool.obtain();
+        assertEquals(4, pool.getCreatedCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releasingTooManyTimesThrows() {
+        Payload payload = pool.obtain();
+        payload.release();
+        payload.release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void retainingRecycledPayloadThrows() {
+        Payload payload = pool.obtain();
+        payload.release();
+        payload.retain();
+    }
+
+    @Test
+    public void ifPooledHelpersIgnoreOtherEvents() {
+        PooledEvent.retainIfPooled("event");
+        PooledEvent.releaseIfPooled("event");
+        Payload payload = pool.obtain();
+        PooledEvent.retainIfPooled(payload);
+        assertEquals(2, payload.getRefCount());
+        PooledEvent.releaseIfPooled(payload);
+        assertEquals(1, payload.getRefCount());
+    }
+
+    @Test
+    public void mailboxHoldsPayloadUntilItWasDelivered() {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        EventMailbox<Payload> mailbox = new EventMailbox<>(new EventObserver<Payload>() {
+            @Override
+            public void onEvent(Payload event) {
+                assertEquals(1, event.getRefCount());
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                tasks.add(task);
+            }
+        }, 4, OverflowPolicy.DROP_OLDEST);
+        Payload payload = pool.obtain();
+        mailbox.deliver(payload);
+        // source releases its reference once the dispatch loop is done
+        payload.release();
+        assertEquals(1, payload.getRefCount());
+
+        tasks.poll().run();
+        assertEquals(0, payload.getRefCount());
+        assertSame(payload, pool.obtain());
+    }
+
+    private static final class Payload extends PooledEvent {
+        String value;
+
+        @Override
+        protected void onRecycle() {
+            value = null;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EventPostQueueTest {
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(1, new EventPostQueue<String>(1, OverflowPolicy.DROP_NEWEST).capacity());
+        assertEquals(8, new EventPostQueue<String>(5, OverflowPolicy.DROP_NEWEST).capacity());
+        assertEquals(16, new EventPostQueue<String>(16, OverflowPolicy.DROP_NEWEST).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void conflateIsRejected() {
+        new EventPostQueue<String>(4, OverflowPolicy.CONFLATE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveCapacityIsRejected() {
+        new EventPostQueue<String>(0, OverflowPolicy.DROP_NEWEST);
+    }
+
+    @Test
+    public void pollsInOfferOrder() {
+        EventPostQueue<String> queue = new EventPostQueue<>(4, OverflowPolicy.DROP_NEWEST);
+        assertTrue(queue.isEmpty());
+        queue.offer("a");
+        queue.offer("b");
+        queue.offer("c");
+
+        assertFalse(queue.isEmpty());
+        assertEquals("a", queue.poll());
+        assertEquals("b", queue.poll());
+        assertEquals("c", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void dropNewestKeepsQueuedEvents() {
+        EventPostQueue<String> queue = new EventPostQueue<>(2, OverflowPolicy.DROP_NEWEST);
+        assertTrue(queue.offer("a"));
+        assertTrue(queue.offer("b"));
+        assertFalse(queue.offer("c"));
+
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals("a", queue.poll());
+        assertEquals("b", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void dropOldestMakesRoomForNewEvent() {
+        EventPostQueue<String> queue = new EventPostQueue<>(2, OverflowPolicy.DROP_OLDEST);
+        queue.offer("a");
+        queue.offer("b");
+        assertTrue(queue.offer("c"));
+
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals("b", queue.poll());
+        assertEquals("c", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void slotsAreReusedAfterWrapAround() {
+        EventPostQueue<Integer> queue = new EventPostQueue<>(2, OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(queue.offer(i));
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void concurrentProducersLoseNothingAndKeepTheirOwnOrder() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 10000;
+        final EventPostQueue<int[]> queue = new EventPostQueue<>(producers * perProducer, OverflowPolicy.DROP_NEWEST);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.offer(new int[]{producer, i});
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+        int[] next = new int[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            int[] event = queue.poll();
+            if (event == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(next[event[0]], event[1]);
+            next[event[0]]++;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, queue.getDroppedCount());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,105 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class KeyCoalescingPostQueueTest {
+
+    @Test
+    public void keepsLatestEventPerKeyInFirstPostedOrder() {
+        KeyCoalescingPostQueue<String> queue = new KeyCoalescingPostQueue<>();
+        assertTrue(queue.offer("a", "a1"));
+        assertTrue(queue.offer("b", "b1"));
+        assertFalse(queue.offer("a", "a2"));
+
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getCoalescedCount());
+        assertEquals("a2", queue.poll());
+        assertEquals("b1", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void nullKeyIsOneKey() {
+        KeyCoalescingPostQueue<String> queue = new KeyCoalescingPostQueue<>();
+        queue.offer(null, "first");
+        queue.offer(null, "second");
+
+        assertEquals(1, queue.size());
+        assertEquals("second", queue.poll());
+    }
+
+    @Test
+    public void keyPostedAfterPollIsQueuedBehindOthers() {
+        KeyCoalescingPostQueue<String> queue = new KeyCoalescingPostQueue<>();
+        queue.offer("a", "a1");
+        queue.offer("b", "b1");
+        assertEquals("a1", queue.poll());
+        assertTrue(queue.offer("a", "a2"));
+
+        assertEquals("b1", queue.poll());
+        assertEquals("a2", queue.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullEventIsRejected() {
+        new KeyCoalescingPostQueue<String>().offer("a", null);
+    }
+
+    @Test
+    public void concurrentProducersLeaveLatestEventOfEveryKey() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 10000;
+        final int keys = 16;
+        final KeyCoalescingPostQueue<int[]> queue = new KeyCoalescingPostQueue<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perProducer; i++) {
+                        // every producer owns its keys, so the latest event of a key is known
+                        queue.offer(producer * keys + i % keys, new int[]{producer, i});
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+        HashMap<Integer, Integer> latest = new HashMap<>();
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread thread : threads) {
+                running |= thread.isAlive();
+            }
+            int pending = queue.size();
+            for (int i = 0; i < pending; i++) {
+                int[] event = queue.poll();
+                int key = event[0] * keys + event[1] % keys;
+                Integer previous = latest.put(key, event[1]);
+                assertTrue(previous == null || previous < event[1]);
+            }
+        }
+        assertTrue(queue.isEmpty());
+        assertEquals(producers * keys, latest.size());
+        for (Integer index : latest.values()) {
+            assertTrue(index >= perProducer - keys);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyedDispatchTest {
+
+    private EventDispatcher<String> dispatcher;
+
+    @Before
+    public void setUp() {
+        dispatcher = new EventDispatcher<>(new TestMainThread(), null);
+    }
+
+    @Test
+    public void inactiveKeyedSubscriptionBuffersEventsOfItsKey() {
+        RecordingSubscription<String> keyed = new RecordingSubscription<>();
+        keyed.setKey("a");
+        keyed.setPendingBuffer(8, 0);
+        dispatcher.add(keyed);
+
+        // no active subscription has key "a"
+        dispatcher.dispatch("a", "first");
+        dispatcher.dispatch("b", "other");
+        dispatcher.dispatch("a", "second");
+        assertEquals(2, keyed.getPendingCount());
+
+        keyed.setActive(true);
+        assertEquals(Arrays.asList("first", "second"), keyed.events);
+    }
+
+    @Test
+    public void inactiveKeyedSubscriptionBuffersWhileOtherKeyIsActive() {
+        RecordingSubscription<String> buffering = new RecordingSubscription<>();
+        buffering.setKey("a");
+        buffering.setPendingBuffer(8, 0);
+        dispatcher.add(buffering);
+        RecordingSubscription<String> active = new RecordingSubscription<>();
+        active.setKey("a");
+        dispatcher.add(active);
+        active.setActive(true);
+
+        dispatcher.dispatch("a", "event");
+        assertEquals(Collections.singletonList("event"), active.events);
+        assertEquals(1, buffering.getPendingCount());
+    }
+
+    @Test
+    public void unkeyedDispatchDoesNotReachKeyedSubscriptions() {
+        RecordingSubscription<String> keyed = new RecordingSubscription<>();
+        keyed.setKey("a");
+        keyed.setPendingBuffer(8, 0);
+        dispatcher.add(keyed);
+        RecordingSubscription<String> unkeyed = new RecordingSubscription<>();
+        dispatcher.add(unkeyed);
+        unkeyed.setActive(true);
+
+        dispatcher.dispatch("event");
+        assertEquals(0, keyed.getPendingCount());
+        assertEquals(Collections.singletonList("event"), unkeyed.events);
+    }
+
+    private RecordingSubscription<String> addActive(Object key, final List<String> calls, final String name) {
+        RecordingSubscription<String> subscription = new RecordingSubscription<String>() {
+            @Override
+            protected void onEvent(String event) {
+                super.onEvent(event);
+                calls.add(name);
+            }
+        };
+        subscription.setKey(key);
+        dispatcher.add(subscription);
+        subscription.setActive(true);
+        return subscription;
+    }
+
+    @Test
+    public void keyedDispatchReachesMatchingKeyAndUnkeyedInRegistrationOrder() {
+        List<String> calls = new ArrayList<>();
+        addActive("a", calls, "a1");
+        addActive(null, calls, "all");
+        addActive("b", calls, "b");
+        addActive("a", calls, "a2");
+
+        assertEquals(3, dispatcher.dispatch("a", "event"));
+        assertEquals(Arrays.asList("a1", "all", "a2"), calls);
+    }
+
+    @Test
+    public void keysAreComparedWithEquals() {
+        List<String> calls = new ArrayList<>();
+        addActive(new String("topic"), calls, "keyed");
+
+        assertEquals(1, dispatcher.dispatch(new String("topic"), "event"));
+        assertEquals(Collections.singletonList("keyed"), calls);
+    }
+
+    @Test
+    public void deactivatedKeyedSubscriptionLeavesKeyIndex() {
+        List<String> calls = new ArrayList<>();
+        RecordingSubscription<String> keyed = addActive("a", calls, "keyed");
+        keyed.setActive(false);
+        assertEquals(0, dispatcher.dispatch("a", "first"));
+
+        keyed.setActive(true);
+        dispatcher.removeAll(dispatcher.getSubscriptionSnapshot());
+        assertEquals(0, dispatcher.dispatch("a", "second"));
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void collectedTableServesSeveralKeys() {
+        List<String> calls = new ArrayList<>();
+        addActive("b", calls, "b");
+        addActive(null, calls, "all");
+        addActive("a", calls, "a");
+        addActive("c", calls, "c");
+
+        long version = dispatcher.getActiveVersion();
+        EventSubscription<String>[] table = dispatcher.collectActive(new Object[]{"a", "b"});
+        assertEquals(3, dispatcher.dispatchTo(table, "event"));
+        assertEquals(Arrays.asList("b", "all", "a"), calls);
+        assertEquals(version, dispatcher.getActiveVersion());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void keyCannotBeSetAfterAdd() {
+        RecordingSubscription<String> subscription = new RecordingSubscription<>();
+        dispatcher.add(subscription);
+        subscription.setKey("a");
+    }
+}
@@ -0,0 +1,117 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongPostQueueTest {
+
+    private final List<Long> drained = new ArrayList<>();
+    private final LongPostQueue.Consumer consumer = new LongPostQueue.Consumer() {
+        @Override
+        public void accept(long value) {
+            drained.add(value);
+        }
+    };
+
+    @Test(expected = IllegalArgumentException.class)
+    public void conflateIsRejected() {
+        new LongPostQueue(4, OverflowPolicy.CONFLATE);
+    }
+
+    @Test
+    public void drainsInOfferOrderUpToLimit() {
+        LongPostQueue queue = new LongPostQueue(3, OverflowPolicy.DROP_NEWEST);
+        assertEquals(4, queue.capacity());
+        assertTrue(queue.isEmpty());
+        queue.offer(1);
+        queue.offer(Long.MIN_VALUE);
+        queue.offer(3);
+
+        assertEquals(2, queue.drain(consumer, 2));
+        assertFalse(queue.isEmpty());
+        assertEquals(1, queue.drain(consumer, 10));
+        assertEquals(0, queue.drain(consumer, 10));
+        assertEquals(Arrays.asList(1L, Long.MIN_VALUE, 3L), drained);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void dropNewestKeepsQueuedValues() {
+        LongPostQueue queue = new LongPostQueue(2, OverflowPolicy.DROP_NEWEST);
+        queue.offer(1);
+        queue.offer(2);
+        assertFalse(queue.offer(3));
+
+        queue.drain(consumer, 10);
+        assertEquals(Arrays.asList(1L, 2L), drained);
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    public void dropOldestMakesRoomForNewValue() {
+        LongPostQueue queue = new LongPostQueue(2, OverflowPolicy.DROP_OLDEST);
+        queue.offer(1);
+        queue.offer(2);
+        assertTrue(queue.offer(3));
+
+        queue.drain(consumer, 10);
+        assertEquals(Arrays.asList(2L, 3L), drained);
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    public void concurrentProducersLoseNothing() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 10000;
+        final LongPostQueue queue = new LongPostQueue(producers * perProducer, OverflowPolicy.DROP_NEWEST);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final long base = (long) p << 32;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.offer(base | i);
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+        final long[] next = new long[producers];
+        LongPostQueue.Consumer ordered = new LongPostQueue.Consumer() {
+            @Override
+            public void accept(long value) {
+                int producer = (int) (value >>> 32);
+                assertEquals(next[producer], value & 0xFFFFFFFFL);
+                next[producer]++;
+            }
+        };
+        int received = 0;
+        while (received < producers * perProducer) {
+            int count = queue.drain(ordered, 64);
+            if (count == 0) {
+                Thread.yield();
+            }
+            received += count;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, queue.getDroppedCount());
+    }
+}
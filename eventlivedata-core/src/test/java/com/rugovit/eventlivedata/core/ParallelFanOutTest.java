@@ -0,0 +1,188 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelFanOutTest {
+
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private final Executor executor = new Executor() {
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+    };
+    private final List<String> received = new ArrayList<>();
+    private EventDispatcher<String> dispatcher;
+
+    @Before
+    public void setUp() {
+        dispatcher = new EventDispatcher<>(new TestMainThread(), null);
+    }
+
+    private void subscribe(ParallelFanOut<String> fanOut, final String name) {
+        RecordingSubscription<String> subscription = new RecordingSubscription<>(fanOut.newDelivery(new EventObserver<String>() {
+            @Override
+            public void onEvent(String event) {
+                received.add(name + ":" + event);
+            }
+        }));
+        dispatcher.add(subscription);
+        subscription.setActive(true);
+    }
+
+    private void dispatch(ParallelFanOut<String> fanOut, String event) {
+        fanOut.begin();
+        try {
+            dispatcher.dispatch(event);
+        } finally {
+            fanOut.end(event);
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void observersAreSplitIntoAtMostParallelismTasks() {
+        ParallelFanOut<String> fanOut = new ParallelFanOut<>(executor, 2, false);
+        subscribe(fanOut, "a");
+        subscribe(fanOut, "b");
+        subscribe(fanOut, "c");
+
+        dispatch(fanOut, "event");
+        assertTrue(received.isEmpty());
+        assertEquals(2, tasks.size());
+        runTasks();
+        assertEquals(Arrays.asList("a:event", "b:event", "c:event"), received);
+    }
+
+    @Test
+    public void dispatchWithoutObserversSubmitsNothing() {
+        ParallelFanOut<String> fanOut = new ParallelFanOut<>(executor, 2, false);
+        dispatch(fanOut, "event");
+
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void barrierHoldsNextRoundUntilPreviousCompleted() {
+        ParallelFanOut<String> fanOut = new ParallelFanOut<>(executor, 1, true);
+        subscribe(fanOut, "a");
+
+        dispatch(fanOut, "first");
+        dispatch(fanOut, "second");
+        assertEquals(1, tasks.size());
+
+        tasks.poll().run();
+        assertEquals(Collections.singletonList("a:first"), received);
+        // completing the first round submitted the waiting one
+        assertEquals(1, tasks.size());
+        runTasks();
+        assertEquals(Arrays.asList("a:first", "a:second"), received);
+    }
+
+    @Test
+    public void roundsOverlapWithoutBarrier() {
+        ParallelFanOut<String> fanOut = new ParallelFanOut<>(executor, 1, false);
+        subscribe(fanOut, "a");
+
+        dispatch(fanOut, "first");
+        dispatch(fanOut, "second");
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    public void deliveryOutsideOfDispatchLoopIsSubmittedAlone() {
+        ParallelFanOut<String> fanOut = new ParallelFanOut<>(executor, 4, false);
+        RecordingSubscription<String> buffering = new RecordingSubscription<>(fanOut.newDelivery(new EventObserver<String>() {
+            @Override
+            public void onEvent(String event) {
+                received.add("buffered:" + event);
+            }
+        }));
+        buffering.setPendingBuffer(4, 0);
+        dispatcher.add(buffering);
+        dispatch(fanOut, "event");
+        assertTrue(tasks.isEmpty());
+
+        // pending buffer is flushed outside of begin() and end()
+        buffering.setActive(true);
+        assertEquals(1, tasks.size());
+        runTasks();
+        assertEquals(Collections.singletonList("buffered:event"), received);
+    }
+
+    @Test
+    public void failingObserverDoesNotStopTheRestOfItsChunk() {
+        ParallelFanOut<String> fanOut = new ParallelFanOut<>(executor, 1, false);
+        RecordingSubscription<String> failing = new RecordingSubscription<>(fanOut.newDelivery(new EventObserver<String>() {
+            @Override
+            public void onEvent(String event) {
+                throw new IllegalStateException("failed");
+            }
+        }));
+        dispatcher.add(failing);
+        failing.setActive(true);
+        subscribe(fanOut, "b");
+
+        dispatch(fanOut, "event");
+        try {
+            tasks.poll().run();
+            fail("observer failure expected");
+        } catch (IllegalStateException expected) {
+            assertEquals("failed", expected.getMessage());
+        }
+        assertEquals(Collections.singletonList("b:event"), received);
+    }
+
+    @Test
+    public void pooledEventIsHeldUntilRoundCompleted() {
+        EventPool<Payload> pool = new EventPool<>(1, new EventPool.Factory<Payload>() {
+            @Override
+            public Payload create() {
+                return new Payload();
+            }
+        });
+        ParallelFanOut<Payload> fanOut = new ParallelFanOut<>(executor, 2, false);
+        EventDispatcher<Payload> payloads = new EventDispatcher<>(new TestMainThread(), null);
+        for (int i = 0; i < 2; i++) {
+            RecordingSubscription<Payload> subscription = new RecordingSubscription<>(fanOut.newDelivery(new EventObserver<Payload>() {
+                @Override
+                public void onEvent(Payload event) {
+                }
+            }));
+            payloads.add(subscription);
+            subscription.setActive(true);
+        }
+        Payload payload = pool.obtain();
+        fanOut.begin();
+        payloads.dispatch(payload);
+        fanOut.end(payload);
+        payload.release();
+
+        assertEquals(1, payload.getRefCount());
+        tasks.poll().run();
+        assertEquals(1, payload.getRefCount());
+        tasks.poll().run();
+        assertEquals(0, payload.getRefCount());
+    }
+
+    private static final class Payload extends PooledEvent {
+    }
+}
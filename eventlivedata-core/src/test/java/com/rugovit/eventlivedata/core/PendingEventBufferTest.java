@@ -0,0 +1,118 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PendingEventBufferTest {
+
+    private EventDispatcher<String> dispatcher;
+
+    @Before
+    public void setUp() {
+        dispatcher = new EventDispatcher<>(new TestMainThread(), null);
+    }
+
+    private RecordingSubscription<String> addBuffering(int capacity, long ttlMillis) {
+        RecordingSubscription<String> subscription = new RecordingSubscription<>();
+        subscription.setPendingBuffer(capacity, ttlMillis);
+        dispatcher.add(subscription);
+        return subscription;
+    }
+
+    @Test
+    public void eventsDispatchedWhileInactiveAreFlushedInOrderOnActivation() {
+        RecordingSubscription<String> subscription = addBuffering(4, 0);
+        dispatcher.dispatch("a");
+        dispatcher.dispatch("b");
+        assertEquals(2, subscription.getPendingCount());
+        assertTrue(subscription.events.isEmpty());
+
+        subscription.setActive(true);
+        dispatcher.dispatch("c");
+        assertEquals(Arrays.asList("a", "b", "c"), subscription.events);
+        assertEquals(0, subscription.getPendingCount());
+    }
+
+    @Test
+    public void eventIsDeliveredOnlyOnce() {
+        RecordingSubscription<String> subscription = addBuffering(4, 0);
+        dispatcher.dispatch("a");
+        subscription.setActive(true);
+        subscription.setActive(false);
+        subscription.setActive(true);
+
+        assertEquals(Collections.singletonList("a"), subscription.events);
+    }
+
+    @Test
+    public void fullBufferDropsOldestEvent() {
+        RecordingSubscription<String> subscription = addBuffering(2, 0);
+        dispatcher.dispatch("a");
+        dispatcher.dispatch("b");
+        dispatcher.dispatch("c");
+        subscription.setActive(true);
+
+        assertEquals(Arrays.asList("b", "c"), subscription.events);
+        assertEquals(1, subscription.getDroppedPendingCount());
+    }
+
+    @Test
+    public void expiredEventsAreDroppedOnFlush() throws InterruptedException {
+        RecordingSubscription<String> subscription = addBuffering(4, 5);
+        dispatcher.dispatch("expired");
+        Thread.sleep(30);
+        dispatcher.dispatch("fresh");
+        subscription.setActive(true);
+
+        assertEquals(Collections.singletonList("fresh"), subscription.events);
+        assertEquals(1, subscription.getDroppedPendingCount());
+    }
+
+    @Test
+    public void flushStopsWhenSubscriptionIsDeactivated() {
+        RecordingSubscription<String> subscription = new RecordingSubscription<String>() {
+            @Override
+            protected void onEvent(String event) {
+                super.onEvent(event);
+                setActive(false);
+            }
+        };
+        subscription.setPendingBuffer(4, 0);
+        dispatcher.add(subscription);
+        dispatcher.dispatch("a");
+        dispatcher.dispatch("b");
+
+        subscription.setActive(true);
+        assertEquals(Collections.singletonList("a"), subscription.events);
+        assertEquals(1, subscription.getPendingCount());
+    }
+
+    @Test
+    public void removalClearsBuffer() {
+        RecordingSubscription<String> subscription = addBuffering(4, 0);
+        dispatcher.dispatch("a");
+        dispatcher.remove(subscription.getObserver());
+
+        assertEquals(0, subscription.getPendingCount());
+        subscription.setActive(true);
+        assertTrue(subscription.events.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bufferCannotBeSetAfterAdd() {
+        RecordingSubscription<String> subscription = new RecordingSubscription<>();
+        dispatcher.add(subscription);
+        subscription.setPendingBuffer(4, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveCapacityIsRejected() {
+        new RecordingSubscription<String>().setPendingBuffer(0, 0);
+    }
+}
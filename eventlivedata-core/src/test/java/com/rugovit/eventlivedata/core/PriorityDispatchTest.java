@@ -0,0 +1,134 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class PriorityDispatchTest {
+
+    private final List<String> calls = new ArrayList<>();
+    private EventDispatcher<String> dispatcher;
+
+    @Before
+    public void setUp() {
+        dispatcher = new EventDispatcher<>(new TestMainThread(), null);
+    }
+
+    private RecordingSubscription<String> add(final String name, Object key, int priority, final boolean consume) {
+        RecordingSubscription<String> subscription = new RecordingSubscription<String>() {
+            @Override
+            protected void onEvent(String event) {
+                super.onEvent(event);
+                calls.add(name);
+                if (consume) {
+                    dispatcher.consume();
+                }
+            }
+        };
+        subscription.setKey(key);
+        subscription.setPriority(priority);
+        dispatcher.add(subscription);
+        subscription.setActive(true);
+        return subscription;
+    }
+
+    @Test
+    public void higherPriorityIsDispatchedFirstThenRegistrationOrder() {
+        add("ui1", null, 0, false);
+        add("reducer", null, 10, false);
+        add("ui2", null, 0, false);
+        add("analytics", null, 5, false);
+
+        dispatcher.dispatch("event");
+        assertEquals(Arrays.asList("reducer", "analytics", "ui1", "ui2"), calls);
+    }
+
+    @Test
+    public void reactivatedSubscriptionKeepsItsPlace() {
+        RecordingSubscription<String> high = add("high", null, 1, false);
+        add("low", null, 0, false);
+        high.setActive(false);
+        high.setActive(true);
+
+        dispatcher.dispatch("event");
+        assertEquals(Arrays.asList("high", "low"), calls);
+    }
+
+    @Test
+    public void keyedAndUnkeyedSubscriptionsAreMergedByPriority() {
+        add("unkeyed", null, 0, false);
+        add("keyed", "a", 1, false);
+
+        dispatcher.dispatch("a", "event");
+        assertEquals(Arrays.asList("keyed", "unkeyed"), calls);
+    }
+
+    @Test
+    public void consumeStopsTheRestOfTheLoop() {
+        add("first", null, 2, false);
+        add("handler", null, 1, true);
+        add("ui", null, 0, false);
+
+        assertEquals(2, dispatcher.dispatch("event"));
+        assertEquals(Arrays.asList("first", "handler"), calls);
+
+        calls.clear();
+        dispatcher.dispatch("next");
+        assertEquals(Arrays.asList("first", "handler"), calls);
+    }
+
+    @Test
+    public void consumeStopsKeyedLoopAndPendingBuffers() {
+        add("handler", "a", 1, true);
+        add("ui", null, 0, false);
+        RecordingSubscription<String> buffering = new RecordingSubscription<>();
+        buffering.setPendingBuffer(4, 0);
+        dispatcher.add(buffering);
+
+        dispatcher.dispatch("a", "event");
+        assertEquals(Collections.singletonList("handler"), calls);
+        assertEquals(0, buffering.getPendingCount());
+    }
+
+    @Test
+    public void consumeInNestedDispatchAffectsOnlyInnerLoop() {
+        RecordingSubscription<String> nesting = new RecordingSubscription<String>() {
+            @Override
+            protected void onEvent(String event) {
+                calls.add("outer");
+                dispatcher.dispatch("a", "nested");
+            }
+        };
+        nesting.setKey("outer");
+        nesting.setPriority(1);
+        dispatcher.add(nesting);
+        nesting.setActive(true);
+        add("inner", "a", 0, true);
+        add("innerSkipped", "a", 0, false);
+        add("afterNesting", null, 0, false);
+
+        dispatcher.dispatch("outer", "event");
+        assertEquals(Arrays.asList("outer", "inner", "afterNesting"), calls);
+    }
+
+    @Test
+    public void consumeOutsideOfDispatchHasNoEffect() {
+        add("a", null, 0, false);
+        dispatcher.consume();
+
+        assertEquals(1, dispatcher.dispatch("event"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void priorityCannotBeSetAfterAdd() {
+        RecordingSubscription<String> subscription = new RecordingSubscription<>();
+        dispatcher.add(subscription);
+        subscription.setPriority(1);
+    }
+}
@@ -0,0 +1,24 @@
+package com.rugovit.eventlivedata.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Subscription that records events it receives directly from the dispatch loop.
+ */
+class RecordingSubscription<T> extends EventSubscription<T> {
+    final List<T> events = new ArrayList<>();
+
+    RecordingSubscription() {
+        super(new Object(), null);
+    }
+
+    RecordingSubscription(EventDelivery<T> delivery) {
+        super(new Object(), delivery);
+    }
+
+    @Override
+    protected void onEvent(T event) {
+        events.add(event);
+    }
+}
@@ -0,0 +1,30 @@
+package com.rugovit.eventlivedata.core;
+
+import java.util.ArrayDeque;
+
+/**
+ * Test thread acts as the main thread, posted tasks run on {@link #runPending()}.
+ */
+final class TestMainThread implements MainThreadScheduler {
+    private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+
+    @Override
+    public boolean isMainThread() {
+        return true;
+    }
+
+    @Override
+    public void post(Runnable task) {
+        pending.add(task);
+    }
+
+    int runPending() {
+        int count = 0;
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,114 @@
+package com.rugovit.eventlivedata.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WeakSubscriptionTest {
+
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final List<String> states = new ArrayList<>();
+    private EventDispatcher<String> dispatcher;
+
+    @Before
+    public void setUp() {
+        dispatcher = new EventDispatcher<>(new TestMainThread(), new EventDispatcher.ActiveStateListener() {
+            @Override
+            public void onActive() {
+                states.add("active");
+            }
+
+            @Override
+            public void onInactive() {
+                states.add("inactive");
+            }
+        });
+    }
+
+    private WeakSubscription addWeak(Object observer) {
+        WeakSubscription subscription = new WeakSubscription(observer, collected);
+        dispatcher.add(subscription);
+        subscription.setActive(true);
+        return subscription;
+    }
+
+    @Test
+    public void reachableObserverIsKept() {
+        Object observer = new Object();
+        WeakSubscription subscription = addWeak(observer);
+
+        assertTrue(subscription.isObserverWeak());
+        assertSame(observer, subscription.getObserver());
+        assertSame(subscription, dispatcher.find(observer));
+        assertEquals(0, dispatcher.purgeCollected(collected));
+        assertEquals(1, dispatcher.dispatch("event"));
+        assertEquals(Collections.singletonList("event"), subscription.events);
+    }
+
+    @Test
+    public void collectedObserverIsPurgedAndLastOneCallsOnInactive() throws InterruptedException {
+        WeakSubscription subscription = addWeak(new Object());
+
+        assertEquals(1, awaitPurge());
+        assertNull(subscription.getObserver());
+        assertTrue(subscription.isRemoved());
+        assertFalse(dispatcher.hasSubscriptions());
+        assertEquals(Arrays.asList("active", "inactive"), states);
+        assertEquals(0, dispatcher.dispatch("event"));
+    }
+
+    @Test
+    public void purgeKeepsOtherSubscriptions() throws InterruptedException {
+        Object kept = new Object();
+        WeakSubscription keptSubscription = addWeak(kept);
+        addWeak(new Object());
+
+        assertEquals(1, awaitPurge());
+        assertEquals(1, dispatcher.getSubscriptionCount());
+        assertEquals(1, dispatcher.dispatch("event"));
+        assertEquals(Collections.singletonList("event"), keptSubscription.events);
+        assertEquals(Collections.singletonList("active"), states);
+        // keeps the observer reachable until here
+        assertSame(kept, keptSubscription.getObserver());
+    }
+
+    /**
+     * Requests garbage collection until the dispatcher purged something, collection is not guaranteed
+     * to happen on the first request.
+     */
+    private int awaitPurge() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            System.gc();
+            int purged = dispatcher.purgeCollected(collected);
+            if (purged > 0) {
+                return purged;
+            }
+            Thread.sleep(10);
+        }
+        return 0;
+    }
+
+    private static final class WeakSubscription extends EventSubscription<String> {
+        final List<String> events = new ArrayList<>();
+
+        WeakSubscription(Object observer, ReferenceQueue<Object> referenceQueue) {
+            super(observer, null, referenceQueue);
+        }
+
+        @Override
+        protected void onEvent(String event) {
+            events.add(event);
+        }
+    }
+}
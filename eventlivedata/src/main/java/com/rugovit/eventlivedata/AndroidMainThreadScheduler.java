@@ -0,0 +1,36 @@
+package com.rugovit.eventlivedata;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+
+/**
+ * {@link MainThreadScheduler} backed by the main looper.
+ */
+final class AndroidMainThreadScheduler implements MainThreadScheduler {
+
+    private static final AndroidMainThreadScheduler INSTANCE = new AndroidMainThreadScheduler();
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private AndroidMainThreadScheduler() {
+    }
+
+    static AndroidMainThreadScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                ? Looper.getMainLooper().isCurrentThread()
+                : Thread.currentThread() == Looper.getMainLooper().getThread();
+    }
+
+    @Override
+    public void post(Runnable task) {
+        handler.post(task);
+    }
+}
@@ -0,0 +1,14 @@
+package com.rugovit.eventlivedata;
+
+/**
+ * Observer of {@link BooleanEventLiveData}, receives events without boxing.
+ */
+public interface BooleanObserver {
+
+    /**
+     * Called when the event is set.
+     *
+     * @param value The new value
+     */
+    void onChanged(boolean value);
+}
@@ -0,0 +1,151 @@
+package com.rugovit.eventlivedata;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.core.EventDelivery;
+import com.rugovit.eventlivedata.core.PooledEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects events dispatched between two frames and delivers them as one list on the next
+ * {@link Choreographer} frame. Two lists are swapped between frames and reused, so steady event flow
+ * does not allocate.
+ * <p>
+ * {@link PooledEvent}s are retained until the batch they belong to was delivered.
+ * <p>
+ * On API levels without {@link Choreographer} batches are delivered every {@link #FALLBACK_FRAME_DELAY_MS}.
+ * Choreographer is touched only from {@link FrameCallback}, which is loaded on API 16 and newer, so this
+ * class itself stays loadable on older devices.
+ */
+final class EventBatchDelivery<T> extends EventDelivery<T> implements Runnable {
+
+    private static final long FALLBACK_FRAME_DELAY_MS = 16;
+
+    private final Observer<? super List<T>> observer;
+    private ArrayList<T> pending = new ArrayList<>();
+    private ArrayList<T> spare = new ArrayList<>();
+    private boolean frameScheduled;
+    private boolean closed;
+    private Handler fallbackHandler;
+    // FrameCallback, typed as Object so API 16 types are not referenced by this class
+    private Object frameCallback;
+
+    EventBatchDelivery(Observer<? super List<T>> observer) {
+        this.observer = observer;
+    }
+
+    @Override
+    protected void deliver(T t) {
+        PooledEvent.retainIfPooled(t);
+        pending.add(t);
+        if (!frameScheduled) {
+            frameScheduled = true;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                if (frameCallback == null) {
+                    frameCallback = FrameCallback.create(this);
+                }
+                FrameCallback.post(frameCallback);
+            } else {
+                if (fallbackHandler == null) {
+                    fallbackHandler = new Handler(Looper.getMainLooper());
+                }
+                fallbackHandler.postDelayed(this, FALLBACK_FRAME_DELAY_MS);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        flush();
+    }
+
+    /**
+     * Observer must not be called below its minimum lifecycle state, so events still waiting for a frame
+     * when subscription becomes inactive are dropped, same as events dispatched while it is inactive.
+     */
+    @Override
+    protected void onActiveStateChanged(boolean active) {
+        if (!active && frameScheduled) {
+            cancelFrame();
+            release(pending);
+        }
+    }
+
+    @Override
+    protected void close() {
+        closed = true;
+        cancelFrame();
+        release(pending);
+        release(spare);
+    }
+
+    private void flush() {
+        frameScheduled = false;
+        if (closed || pending.isEmpty()) {
+            return;
+        }
+        // events dispatched by the observer itself are collected into the other list for the next frame
+        ArrayList<T> batch = pending;
+        pending = spare;
+        spare = batch;
+        try {
+            observer.onChanged(batch);
+        } finally {
+            release(batch);
+        }
+    }
+
+    private static void release(ArrayList<?> events) {
+        for (int i = 0; i < events.size(); i++) {
+            PooledEvent.releaseIfPooled(events.get(i));
+        }
+        events.clear();
+    }
+
+    private void cancelFrame() {
+        if (!frameScheduled) {
+            return;
+        }
+        frameScheduled = false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            FrameCallback.remove(frameCallback);
+        } else if (fallbackHandler != null) {
+            fallbackHandler.removeCallbacks(this);
+        }
+    }
+
+    /**
+     * Choreographer frame callback of one delivery, only loaded on API 16 and newer.
+     */
+    private static final class FrameCallback implements Choreographer.FrameCallback {
+        private final EventBatchDelivery<?> delivery;
+
+        private FrameCallback(EventBatchDelivery<?> delivery) {
+            this.delivery = delivery;
+        }
+
+        static Object create(EventBatchDelivery<?> delivery) {
+            return new FrameCallback(delivery);
+        }
+
+        static void post(Object callback) {
+            Choreographer.getInstance().postFrameCallback((FrameCallback) callback);
+        }
+
+        static void remove(Object callback) {
+            Choreographer.getInstance().removeFrameCallback((FrameCallback) callback);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            delivery.flush();
+        }
+    }
+}
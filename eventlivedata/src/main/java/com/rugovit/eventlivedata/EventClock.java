@@ -0,0 +1,25 @@
+package com.rugovit.eventlivedata;
+
+import android.os.SystemClock;
+
+/**
+ * Source of time for {@link EventTimer}. Replace {@link #SYSTEM} with a manually advanced clock to
+ * test timed operators deterministically.
+ */
+public interface EventClock {
+
+    /**
+     * Clock based on {@link SystemClock#uptimeMillis()}, same time base as main looper messages.
+     */
+    EventClock SYSTEM = new EventClock() {
+        @Override
+        public long uptimeMillis() {
+            return SystemClock.uptimeMillis();
+        }
+    };
+
+    /**
+     * @return current time in milliseconds, must never go backwards
+     */
+    long uptimeMillis();
+}
@@ -0,0 +1,19 @@
+package com.rugovit.eventlivedata;
+
+/**
+ * Combines latest events of two sources in
+ * {@link EventTransformations#combineLatest(EventLiveData, EventLiveData, EventCombiner)}.
+ *
+ * @param <A> type of events of the first source
+ * @param <B> type of events of the second source
+ * @param <R> type of combined events
+ */
+public interface EventCombiner<A, B, R> {
+
+    /**
+     * @param a latest event of the first source
+     * @param b latest event of the second source
+     * @return combined event
+     */
+    R combine(A a, B b);
+}
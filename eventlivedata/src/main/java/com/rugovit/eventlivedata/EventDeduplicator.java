@@ -0,0 +1,68 @@
+package com.rugovit.eventlivedata;
+
+import androidx.arch.core.util.Function;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Dedup stage of {@link MutableEventLiveData}: rejects an event whose key equals the key of the last
+ * accepted event, if that one was accepted less than windowMillis ago. Producers on any thread race
+ * with a compare-and-set on the immutable last accepted entry, nothing is locked.
+ *
+ * @param <T> type of events
+ */
+final class EventDeduplicator<T> {
+
+    private final Function<? super T, ?> keyFunction;
+    private final long windowMillis;
+    private final EventClock clock;
+    private final AtomicReference<Accepted> lastAccepted = new AtomicReference<>();
+    private final AtomicLong suppressedCount = new AtomicLong();
+
+    /**
+     * @param keyFunction events with equal keys are duplicates, null to compare events themselves
+     */
+    EventDeduplicator(Function<? super T, ?> keyFunction, long windowMillis, EventClock clock) {
+        this.keyFunction = keyFunction;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if the event is not a duplicate and should be delivered, it becomes the last accepted one
+     */
+    boolean accept(T event) {
+        Object key = keyFunction == null ? event : keyFunction.apply(event);
+        long now = clock.uptimeMillis();
+        Accepted accepted = null;
+        for (; ; ) {
+            Accepted last = lastAccepted.get();
+            if (last != null && now - last.timeMillis < windowMillis
+                    && (last.key == key || (key != null && key.equals(last.key)))) {
+                suppressedCount.incrementAndGet();
+                return false;
+            }
+            if (accepted == null) {
+                accepted = new Accepted(key, now);
+            }
+            if (lastAccepted.compareAndSet(last, accepted)) {
+                return true;
+            }
+        }
+    }
+
+    long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    private static final class Accepted {
+        final Object key;
+        final long timeMillis;
+
+        Accepted(Object key, long timeMillis) {
+            this.key = key;
+            this.timeMillis = timeMillis;
+        }
+    }
+}
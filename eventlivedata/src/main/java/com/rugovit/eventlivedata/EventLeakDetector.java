@@ -0,0 +1,140 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.Observer;
+
+import java.util.HashMap;
+
+/**
+ * Opt-in detector of observers that pile up on a {@link LifecycleOwner}, like observers added in
+ * {@link androidx.fragment.app.Fragment#onViewCreated} every time a fragment returns from the back
+ * stack without {@link EventLiveData#observeInOnStart(LifecycleOwner, Observer)}, or observers added with
+ * {@link EventLiveData#observeForever(Observer)} and never removed. Override only the callbacks you need
+ * and install it with {@link EventLiveData#setLeakDetector(EventLeakDetector)}.
+ * <p>
+ * Sampled registration records the code that made it, its call site. Lifecycle bound registrations are
+ * checked against observers already bound to the same owner on the same EventLiveData, forever and weak
+ * forever registrations against forever observers of the same EventLiveData:
+ * <ul>
+ * <li>observer from the same call site is still registered, which means that code registered again
+ * while the previous observer is still alive</li>
+ * <li>owner, or EventLiveData for forever observers, has more observers than the configured threshold</li>
+ * </ul>
+ * Reports are aggregated per owner class and call site. Call site is resolved from a stack trace of sampled
+ * registrations only, so with sampling the detector is cheap enough for release builds: registrations that
+ * are not sampled cost one counter decrement and are not compared. All callbacks are called on the main thread.
+ */
+public abstract class EventLeakDetector {
+
+    private final int maxObserversPerOwner;
+    private final int sampleInterval;
+    private int untilNextSample;
+    private final HashMap<Site, Site> sites = new HashMap<>();
+
+    /**
+     * @param maxObserversPerOwner number of observers one owner may have on one EventLiveData before it is reported
+     * @param sampleInterval       check every sampleInterval-th registration, 1 to check all of them
+     */
+    protected EventLeakDetector(int maxObserversPerOwner, int sampleInterval) {
+        if (maxObserversPerOwner < 1) {
+            throw new IllegalArgumentException("Observer threshold must be positive, was " + maxObserversPerOwner);
+        }
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample interval must be positive, was " + sampleInterval);
+        }
+        this.maxObserversPerOwner = maxObserversPerOwner;
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Called when an observer was registered from a call site whose previous observer is still registered,
+     * bound to the same owner or, for forever observers, on the same source.
+     *
+     * @param source         EventLiveData or {@link EventLiveDataBus} the observer was registered on
+     * @param owner          owner both observers are bound to, null for forever observers
+     * @param callSite       code that registered the observer
+     * @param observerCount  observers from that call site bound to the owner or registered forever, including the new one
+     * @param duplicateCount duplicate registrations reported so far for this owner class and call site
+     */
+    @MainThread
+    public void onDuplicateObserver(@NonNull Object source, @Nullable LifecycleOwner owner, @NonNull StackTraceElement callSite, int observerCount, int duplicateCount) {
+    }
+
+    /**
+     * Called once per owner and EventLiveData when owner's observer count exceeds the threshold. For forever
+     * observers it is called when their count on the EventLiveData exceeds the threshold, and again only after
+     * a sampled registration found it back under the threshold.
+     *
+     * @param source        EventLiveData or {@link EventLiveDataBus} the observers are registered on
+     * @param owner         owner with too many observers, null for forever observers
+     * @param callSite      code that registered the last observer, null if stack trace is not available
+     * @param observerCount observers bound to the owner or registered forever
+     */
+    @MainThread
+    public void onObserverLimitExceeded(@NonNull Object source, @Nullable LifecycleOwner owner, StackTraceElement callSite, int observerCount) {
+    }
+
+    /**
+     * @return true if the registration being made should be checked
+     */
+    final boolean sample() {
+        if (--untilNextSample > 0) {
+            return false;
+        }
+        untilNextSample = sampleInterval;
+        return true;
+    }
+
+    /**
+     * @return true if observer count of the owner exceeds the threshold
+     */
+    final boolean isOverLimit(int observerCount) {
+        return observerCount > maxObserversPerOwner;
+    }
+
+    final void reportDuplicate(Object source, LifecycleOwner owner, StackTraceElement callSite, int observerCount) {
+        Site key = new Site(owner == null ? null : owner.getClass(), callSite);
+        Site site = sites.get(key);
+        if (site == null) {
+            site = key;
+            sites.put(site, site);
+        }
+        site.duplicateCount++;
+        onDuplicateObserver(source, owner, callSite, observerCount, site.duplicateCount);
+    }
+
+    final void reportLimitExceeded(Object source, LifecycleOwner owner, StackTraceElement callSite, int observerCount) {
+        onObserverLimitExceeded(source, owner, callSite, observerCount);
+    }
+
+    /**
+     * Owner class, null for forever observers, and call site.
+     */
+    private static final class Site {
+        final Class<?> ownerClass;
+        final StackTraceElement callSite;
+        int duplicateCount;
+
+        Site(Class<?> ownerClass, StackTraceElement callSite) {
+            this.ownerClass = ownerClass;
+            this.callSite = callSite;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Site)) {
+                return false;
+            }
+            Site site = (Site) o;
+            return ownerClass == site.ownerClass && callSite.equals(site.callSite);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (ownerClass == null ? 0 : ownerClass.hashCode()) + callSite.hashCode();
+        }
+    }
+}
@@ -1,25 +1,29 @@
 package com.rugovit.eventlivedata;
 
-import android.os.Build;
-import android.os.Looper;
 import androidx.annotation.MainThread;
+import androidx.arch.core.util.Function;
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.Lifecycle;
-import androidx.lifecycle.LifecycleObserver;
 import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
-import androidx.lifecycle.OnLifecycleEvent;
 import androidx.lifecycle.ViewModel;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import com.rugovit.eventlivedata.core.BackpressureStrategy;
+import com.rugovit.eventlivedata.core.EventDelivery;
+import com.rugovit.eventlivedata.core.EventDispatcher;
+import com.rugovit.eventlivedata.core.EventMailbox;
+import com.rugovit.eventlivedata.core.EventObserver;
+import com.rugovit.eventlivedata.core.EventSubscription;
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+import com.rugovit.eventlivedata.core.ParallelFanOut;
+
+import java.util.List;
+import java.util.concurrent.Executor;
 
 
-import static androidx.lifecycle.Lifecycle.State.DESTROYED;
 import static androidx.lifecycle.Lifecycle.State.STARTED;
 
 /**
@@ -63,26 +67,289 @@ import static androidx.lifecycle.Lifecycle.State.STARTED;
  */
 public  class EventLiveData<T> extends LiveData<T> {
 
-    private final HashMap<Observer<? super T>, EventObserverWrapper> observers= new HashMap<>();
+    /**
+     * Mailbox capacity used by observers registered with an {@link Executor} when capacity is not specified.
+     */
+    public static final int DEFAULT_MAILBOX_CAPACITY = 64;
+
+    /**
+     * Binds observers to lifecycles and keeps them in the core dispatcher.
+     */
+    final EventObserverRegistry<T> registry;
+    /**
+     * Observer registry, activity gating and dispatch loop, shared with plain JVM code in the core module.
+     * Only active observers are visited during dispatch, they are activated on lifecycle transitions.
+     */
+    private final EventDispatcher<T> dispatcher;
     private final Observer<T> internalObserver;
-    private int mActiveCount = 0;
+    private static volatile EventLiveDataMonitor sGlobalMonitor;
+    private static volatile EventLeakDetector sLeakDetector;
+    // read on posting threads
+    private volatile EventLiveDataMonitor mMonitor;
+    private MonitorBridge mMonitorBridge;
+    /**
+     * {@link System#nanoTime()} of postValue call that produced the value being set, -1 for regular setValue.
+     */
+    long mPendingPostNanos = -1;
+    // true while LiveData calls the internal observer with a value that must not be dispatched
+    private boolean mIgnoreInternal;
+    private int mDispatchDepth;
+    private Function<? super T, ?> mKeyExtractor;
+    private ParallelFanOut<T> mParallelFanOut;
 
     public EventLiveData() {
+        this(AndroidMainThreadScheduler.getInstance());
+    }
+
+    /**
+     * @param mainThreadScheduler thread events are dispatched on, JVM tests pass one that does not need the main looper
+     */
+    EventLiveData(MainThreadScheduler mainThreadScheduler) {
+        this.registry = new EventObserverRegistry<>(this, mainThreadScheduler, new EventDispatcher.ActiveStateListener() {
+            @Override
+            public void onActive() {
+                onActiveEvent();
+            }
+
+            @Override
+            public void onInactive() {
+                EventLiveData.this.onInactive();
+            }
+        });
+        this.dispatcher = registry.getDispatcher();
         this.internalObserver =  (new Observer<T>() {
             @Override
             public void onChanged(T t) {
-                Iterator<Map.Entry<Observer<? super T>, EventObserverWrapper>> iterator = EventLiveData.this.observers.entrySet().iterator();
-                while (iterator.hasNext()){
-                    EventObserverWrapper wrapper= iterator.next().getValue();
-                    if(wrapper.shouldBeActive())
-                        wrapper.getObserver().onChanged(t);
+                if (mIgnoreInternal) {
+                    return;
+                }
+                long postNanos = mPendingPostNanos;
+                mPendingPostNanos = -1;
+                mDispatchDepth++;
+                try {
+                    ParallelFanOut<T> fanOut = mParallelFanOut;
+                    if (fanOut == null) {
+                        dispatchEvent(t, postNanos);
+                        return;
+                    }
+                    // thread-safe observers are only collected by the loop and started together after it
+                    fanOut.begin();
+                    try {
+                        dispatchEvent(t, postNanos);
+                    } finally {
+                        fanOut.end(t);
+                    }
+                } finally {
+                    mDispatchDepth--;
+                    onEventDispatched(t);
                 }
             }
         });
     }
+
+    private void dispatchEvent(T t, long postNanos) {
+        registry.purgeCollected();
+        EventLiveDataMonitor monitor = getMonitor();
+        Function<? super T, ?> keyExtractor = mKeyExtractor;
+        if (monitor != null) {
+            dispatchMonitored(t, monitor, postNanos);
+        } else if (keyExtractor == null) {
+            dispatcher.dispatch(t);
+        } else {
+            dispatcher.dispatch(keyExtractor.apply(t), t);
+        }
+    }
+
+    private void dispatchMonitored(T t, EventLiveDataMonitor monitor, long postNanos) {
+        if (mMonitorBridge == null) {
+            mMonitorBridge = new MonitorBridge();
+        }
+        MonitorBridge bridge = mMonitorBridge;
+        EventLiveDataMonitor previousMonitor = bridge.monitor;
+        long previousPostNanos = bridge.postNanos;
+        // dispatch can be re-entered when an observer sets a new value of the same instance
+        bridge.monitor = monitor;
+        bridge.postNanos = postNanos;
+        long start = System.nanoTime();
+        Function<? super T, ?> keyExtractor = mKeyExtractor;
+        int delivered = keyExtractor == null ? dispatcher.dispatch(t, bridge) : dispatcher.dispatch(keyExtractor.apply(t), t, bridge);
+        long duration = System.nanoTime() - start;
+        bridge.monitor = previousMonitor;
+        bridge.postNanos = previousPostNanos;
+        if (delivered == 0) {
+            monitor.onEventLost(this);
+        }
+        monitor.onEventDispatched(this, duration, dispatcher.getSubscriptionCount(), dispatcher.getActiveCount());
+    }
+
+    /**
+     * Sets function that extracts the key of every event, required by observers registered with a key
+     * (see {@link EventObserverOptions#key(Object)}). Event is delivered to observers without
+     * a key and to observers whose key equals the extracted one, found by index so events do not wake
+     * observers of other keys. Null key reaches observers without a key only.
+     *
+     * @param keyExtractor function returning key of the event, null to stop extracting keys
+     */
+    @MainThread
+    public void setKeyExtractor(Function<? super T, ?> keyExtractor) {
+        registry.assertMainThread("setKeyExtractor");
+        mKeyExtractor = keyExtractor;
+    }
+
+    /**
+     * Same as {@link #setParallelExecutor(Executor, int, boolean)} with parallelism equal to the number of
+     * available processors and without completion barrier.
+     *
+     * @param executor pool {@link ThreadSafeObserver}s are called on
+     */
+    @MainThread
+    public void setParallelExecutor(@NonNull Executor executor) {
+        setParallelExecutor(executor, Runtime.getRuntime().availableProcessors(), false);
+    }
+
+    /**
+     * Moves {@link ThreadSafeObserver}s registered after this call off the main thread. Dispatch loop only
+     * collects them and every event is then fanned out to them in parallel, split into at most parallelism
+     * tasks on the executor. Other observers, UI observers included, are still called on the main thread.
+     * <p> Lifecycle rules are applied on the main thread when event is dispatched, same as for other observers.
+     *
+     * @param executor          pool thread-safe observers are called on, for example a fixed thread pool
+     * @param parallelism       maximum number of tasks one event is split into
+     * @param completionBarrier true to fan out next event only after all observers finished the previous one,
+     *                          false to let events overlap
+     * @throws IllegalStateException if parallel executor was already set
+     */
+    @MainThread
+    public void setParallelExecutor(@NonNull Executor executor, int parallelism, boolean completionBarrier) {
+        registry.assertMainThread("setParallelExecutor");
+        registry.assertNotNull(executor, "executor");
+        if (mParallelFanOut != null) {
+            throw new IllegalStateException("Parallel executor is already set");
+        }
+        mParallelFanOut = new ParallelFanOut<>(executor, parallelism, completionBarrier);
+    }
+
+    /**
+     * @return delivery of observer registered without one, parallel for thread-safe observers once executor is set
+     */
+    @SuppressWarnings("unchecked")
+    private EventDelivery<T> defaultDelivery(Object observer) {
+        ParallelFanOut<T> fanOut = mParallelFanOut;
+        if (fanOut == null || !(observer instanceof ThreadSafeObserver)) {
+            return null;
+        }
+        return fanOut.newDelivery(toEventObserver((Observer<T>) observer));
+    }
+
+    /**
+     * Sets monitor used by every EventLiveData that has no monitor of its own.
+     *
+     * @param monitor monitor or null to disable global monitoring
+     */
+    public static void setGlobalMonitor(EventLiveDataMonitor monitor) {
+        sGlobalMonitor = monitor;
+    }
+
+    /**
+     * Installs detector of observers piling up on lifecycle owners or registered forever, checked on
+     * registrations of every EventLiveData, primitive EventLiveData and {@link EventLiveDataBus}.
+     *
+     * @param detector detector or null to disable detection
+     */
+    public static void setLeakDetector(EventLeakDetector detector) {
+        sLeakDetector = detector;
+    }
+
+    static EventLeakDetector getLeakDetector() {
+        return sLeakDetector;
+    }
+
+    /**
+     * Sets monitor for this instance only, it takes precedence over the global monitor.
+     *
+     * @param monitor monitor or null to fall back to the global monitor
+     */
+    @MainThread
+    public void setMonitor(EventLiveDataMonitor monitor) {
+        registry.assertMainThread("setMonitor");
+        mMonitor = monitor;
+    }
+
+    EventLiveDataMonitor getMonitor() {
+        EventLiveDataMonitor monitor = mMonitor;
+        return monitor != null ? monitor : sGlobalMonitor;
+    }
+
+    /**
+     * @return number of registered observers
+     */
+    public int getObserverCount() {
+        return dispatcher.getSubscriptionCount();
+    }
+
+    /**
+     * @return number of events dropped by {@link BackpressureStrategy} of the observer registered with an
+     * {@link Executor}, 0 for other observers or if observer is not registered
+     */
+    @MainThread
+    public long getDroppedEventCount(@NonNull Observer<? super T> observer) {
+        EventSubscription<T> subscription = dispatcher.find(observer);
+        if (subscription == null || !(subscription.getDelivery() instanceof EventMailbox)) {
+            return 0;
+        }
+        return ((EventMailbox<T>) subscription.getDelivery()).getDroppedCount();
+    }
+
+    /**
+     * @return number of observers that currently receive events
+     */
+    public int getActiveObserverCount() {
+        return dispatcher.getActiveCount();
+    }
     private void internalObserve(){
-        super.observeForever(this.internalObserver);
+        // LiveData replays the last value to a new observer, that event was already dispatched when it was set
+        mIgnoreInternal = true;
+        try {
+            super.observeForever(this.internalObserver);
+        } finally {
+            mIgnoreInternal = false;
+        }
+    }
+
+    final MainThreadScheduler getMainThreadScheduler() {
+        return dispatcher.getScheduler();
+    }
+
+    /**
+     * @return true while an event is being dispatched, LiveData only stores values set in that time and
+     * delivers them after the running dispatch returned
+     */
+    final boolean isDispatching() {
+        return mDispatchDepth > 0;
+    }
+
+    /**
+     * Called after the event was dispatched to all observers.
+     *
+     * @param t dispatched event
+     */
+    void onEventDispatched(T t) {
+    }
 
+    /**
+     * Drops the reference LiveData keeps to the last value without dispatching anything. Skipped while
+     * the value is being dispatched, LiveData would deliver the cleared value after the nested call returns.
+     */
+    final void clearStoredValue() {
+        if (mDispatchDepth > 0) {
+            return;
+        }
+        mIgnoreInternal = true;
+        try {
+            super.setValue(null);
+        } finally {
+            mIgnoreInternal = false;
+        }
     }
 
     /**
@@ -207,46 +474,211 @@ public  class EventLiveData<T> extends LiveData<T> {
      */
     @MainThread
     public void observe(@NonNull LifecycleOwner owner, @NonNull Observer observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent) {
-        assertMainThread("observe");
-        assertNotNull(owner, "owner");
-        assertNotNull(observer, "observer");
-        assertNotNull(owner, "minimumStateForSendingEvent");
-        assertDestroyedState(minimumStateForSendingEvent);
-        assertMaximumEvent(removeObserverEvent);
-        if(minimumStateForSendingEvent==DESTROYED){
-            StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
-            StackTraceElement caller = stackTraceElements[3];
-            String className = caller.getClassName();
-            String methodName = caller.getMethodName();
-            IllegalArgumentException exception =
-                    new IllegalArgumentException("State can not be equal to DESTROYED! : " +
-                            "method " + className + "." + methodName +
-                            ", parameter " + minimumStateForSendingEvent);
-            throw sanitizeStackTrace(exception);
-        }
+        observe(owner, observer, minimumStateForSendingEvent, removeObserverEvent, defaultDelivery(observer));
+    }
 
-        if (owner.getLifecycle().getCurrentState() == DESTROYED) {
-            return;
+    /**
+     * Registers the observer with options that can combine a key, a dispatch priority, a pending buffer and the
+     * lifecycle range, see {@link EventObserverOptions}.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     * @param options  registration options, read only during this call
+     * @throws IllegalStateException if options have a key and key extractor is not set
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Observer<? super T> observer, @NonNull EventObserverOptions options) {
+        registry.assertNotNull(options, "options");
+        if (options.getKey() != null) {
+            assertKeyed(options.getKey());
         }
+        if (registry.observe(owner, observer, options.getMinimumState(), options.getRemoveObserverEvent(), defaultDelivery(observer), options.getKey(),
+                options.getPendingBufferSize(), options.getPendingEventTtlMillis(), options.getPriority()) && !super.hasObservers()) {
+            internalObserve();
+        }
+    }
 
-        EventLifecycleBoundEventObserver wrapper = new EventLifecycleBoundEventObserver(owner, observer);
-        wrapper.setMinimumStateForSendingEvent(minimumStateForSendingEvent);
-        wrapper.setMaximumEventForRemovingEvent(removeObserverEvent);
-        EventObserverWrapper existing = wrapper;
-        if(!observers.containsKey(observer))existing = observers.put(observer, wrapper);
-        if (existing != null && !existing.isAttachedTo(owner)) {
-            throw new IllegalArgumentException("Cannot add the same observer"
-                    + " with different lifecycles");
+    /**
+     * Same as {@link #observeForever(Observer)} with key and priority taken from the options, lifecycle range and
+     * pending buffer do not apply to an observer that is always active.
+     *
+     * @param observer The observer that will receive the events
+     * @param options  registration options, read only during this call
+     * @throws IllegalStateException if options have a key and key extractor is not set
+     */
+    @MainThread
+    public void observeForever(@NonNull Observer<? super T> observer, @NonNull EventObserverOptions options) {
+        registry.assertNotNull(options, "options");
+        if (options.getKey() != null) {
+            assertKeyed(options.getKey());
         }
-        if (existing != null) {
-            return;
+        if (registry.observeForever(observer, defaultDelivery(observer), options.getKey(), options.getPriority()) && !super.hasObservers()) {
+            internalObserve();
         }
-        owner.getLifecycle().addObserver(wrapper);
+    }
+
+    /**
+     * Same as {@link #observe(LifecycleOwner, Observer)} but events dispatched while owner is not started are kept
+     * and delivered, in order, as soon as owner is started again. See
+     * {@link #observe(LifecycleOwner, Observer, Lifecycle.State, Lifecycle.Event, int, long)}.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     * @param pendingBufferSize maximum number of events kept while observer is inactive, the oldest one is dropped when full
+     * @param pendingEventTtlMillis time after which kept event is dropped instead of delivered, 0 for no limit
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Observer<? super T> observer, int pendingBufferSize, long pendingEventTtlMillis) {
+        observe(owner, observer, STARTED, null, pendingBufferSize, pendingEventTtlMillis);
+    }
 
-        if (!super.hasObservers()) {
+    /**
+     * Same as {@link #observe(LifecycleOwner, Observer, Lifecycle.State, Lifecycle.Event)} but events dispatched while
+     * owner is below minimumStateForSendingEvent are not lost for this observer. They are kept in a buffer preallocated
+     * to pendingBufferSize and delivered in order as soon as owner reaches minimumStateForSendingEvent again.
+     * <p> Events stay one-shot: every event is delivered to the observer at most once, buffer is emptied on delivery
+     * and discarded when observer is removed.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     * @param minimumStateForSendingEvent minimum lifecycle state in what owner has to be for Observer to be updated
+     * @param removeObserverEvent maximum {@link Lifecycle.Event} that triggers removal of Event
+     * @param pendingBufferSize maximum number of events kept while observer is inactive, the oldest one is dropped when full
+     * @param pendingEventTtlMillis time after which kept event is dropped instead of delivered, 0 for no limit
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Observer<? super T> observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent,
+                        int pendingBufferSize, long pendingEventTtlMillis) {
+        if (pendingBufferSize < 1) {
+            throw new IllegalArgumentException("Pending buffer size must be positive, was " + pendingBufferSize);
+        }
+        if (registry.observe(owner, observer, minimumStateForSendingEvent, removeObserverEvent, defaultDelivery(observer), null, pendingBufferSize, pendingEventTtlMillis, 0) && !super.hasObservers()) {
             internalObserve();
         }
+    }
 
+    /**
+     * Stops the event being dispatched from reaching observers after the calling one, in dispatch order, see
+     * {@link EventObserverOptions#priority(int)}. Must be called from an observer on the main thread while
+     * it handles the event, has no effect otherwise. Observers called on an executor or in parallel are handed
+     * the event before it can be consumed and cannot consume it.
+     */
+    @MainThread
+    public void consumeEvent() {
+        registry.assertMainThread("consumeEvent");
+        dispatcher.consume();
+    }
+
+    /**
+     * Same as {@link #observe(LifecycleOwner, Observer)} but events are delivered to the observer on the given
+     * {@link Executor} instead of the main thread, through a mailbox with {@link #DEFAULT_MAILBOX_CAPACITY}
+     * that drops the oldest pending event when full.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     * @param executor Executor on which observer is called
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Observer<? super T> observer, @NonNull Executor executor) {
+        observe(owner, observer, STARTED, null, executor, DEFAULT_MAILBOX_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Same as {@link #observe(LifecycleOwner, Observer, Lifecycle.State, Lifecycle.Event)} but events are delivered
+     * to the observer on the given {@link Executor} instead of the main thread.
+     * <p> Lifecycle rules are applied on the main thread when event is dispatched: only events dispatched while owner
+     * is at least in minimumStateForSendingEvent state are put into observers mailbox. Mailbox is drained on the
+     * executor one event at a time, in order, so slow observer never blocks the main thread. When observer is
+     * removed, events still waiting in its mailbox are discarded.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     * @param minimumStateForSendingEvent minimum lifecycle state in what owner has to be for Observer to be updated
+     * @param removeObserverEvent maximum {@link Lifecycle.Event} that triggers removal of Event
+     * @param executor Executor on which observer is called
+     * @param mailboxCapacity maximum number of events waiting for the observer
+     * @param overflowPolicy what to do with event dispatched while mailbox is full
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Observer<? super T> observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent,
+                        @NonNull Executor executor, int mailboxCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        registry.assertNotNull(overflowPolicy, "overflowPolicy");
+        observe(owner, observer, minimumStateForSendingEvent, removeObserverEvent, executor, BackpressureStrategy.of(overflowPolicy, mailboxCapacity));
+    }
+
+    /**
+     * Same as {@link #observe(LifecycleOwner, Observer, Executor)} with explicit {@link BackpressureStrategy}
+     * that decides what happens with events dispatched while observer is still busy with previous ones.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     * @param executor Executor on which observer is called
+     * @param strategy what to do when events arrive faster than observer handles them
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Observer<? super T> observer, @NonNull Executor executor, @NonNull BackpressureStrategy strategy) {
+        observe(owner, observer, STARTED, null, executor, strategy);
+    }
+
+    /**
+     * Same as {@link #observe(LifecycleOwner, Observer, Lifecycle.State, Lifecycle.Event, Executor, int, OverflowPolicy)}
+     * with explicit {@link BackpressureStrategy}. Events dropped by the strategy are counted per observer,
+     * see {@link #getDroppedEventCount(Observer)}. Observer whose {@link BackpressureStrategy#error(int)} capacity
+     * is exceeded, or whose executor rejects work, is removed and the exception is thrown on the main thread.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     * @param minimumStateForSendingEvent minimum lifecycle state in what owner has to be for Observer to be updated
+     * @param removeObserverEvent maximum {@link Lifecycle.Event} that triggers removal of Event
+     * @param executor Executor on which observer is called
+     * @param strategy what to do when events arrive faster than observer handles them
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Observer<? super T> observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent,
+                        @NonNull Executor executor, @NonNull BackpressureStrategy strategy) {
+        registry.assertNotNull(executor, "executor");
+        registry.assertNotNull(strategy, "strategy");
+        observe(owner, observer, minimumStateForSendingEvent, removeObserverEvent, new EventMailbox<T>(toEventObserver(observer), executor, strategy, mailboxFailureHandler(observer)));
+    }
+
+    /**
+     * Same as {@link #observe(LifecycleOwner, Observer)} but events are collected between frames and delivered
+     * once per {@link android.view.Choreographer} frame as a single list, in the order they were dispatched.
+     * <p> Use for high frequency events (scroll, sensor, progress) where UI is updated only once per frame anyway.
+     * <p> List passed to observer is reused for next batches, it is valid only during {@link Observer#onChanged(Object)} call,
+     * copy it if it has to be kept.
+     * <p> Observer is never called below its minimum lifecycle state, so the batch still waiting for a frame when owner
+     * becomes inactive or observer is removed is dropped: events dispatched since the last frame before ON_STOP are
+     * not delivered, also not after owner is started again. Observers that must not lose them should use
+     * {@link #observe(LifecycleOwner, Observer, int, long)} with a pending buffer instead.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive events of one frame
+     */
+    @MainThread
+    public void observeBatch(@NonNull LifecycleOwner owner, @NonNull Observer<? super List<T>> observer) {
+        observeBatch(owner, observer, STARTED, null);
+    }
+
+    /**
+     * Same as {@link #observeBatch(LifecycleOwner, Observer)} with lifecycle range of
+     * {@link #observe(LifecycleOwner, Observer, Lifecycle.State, Lifecycle.Event)}. Batch still waiting for a frame
+     * when owner falls below minimumStateForSendingEvent is dropped.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive events of one frame
+     * @param minimumStateForSendingEvent minimum lifecycle state in what owner has to be for Observer to be updated
+     * @param removeObserverEvent maximum {@link Lifecycle.Event} that triggers removal of Event
+     */
+    @MainThread
+    public void observeBatch(@NonNull LifecycleOwner owner, @NonNull Observer<? super List<T>> observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent) {
+        observe(owner, observer, minimumStateForSendingEvent, removeObserverEvent, new EventBatchDelivery<T>(observer));
+    }
+
+    private void observe(@NonNull LifecycleOwner owner, @NonNull Observer<?> observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent, EventDelivery<T> delivery) {
+        if (registry.observe(owner, observer, minimumStateForSendingEvent, removeObserverEvent, delivery) && !super.hasObservers()) {
+            internalObserve();
+        }
     }
 
     /**
@@ -255,48 +687,135 @@ public  class EventLiveData<T> extends LiveData<T> {
     @MainThread
     @Override
     public void observeForever(@NonNull Observer observer) {
-        assertMainThread("observeForever");
-        assertNotNull(observer, "observer");
-        EventAlwaysActiveEventObserver wrapper = new EventAlwaysActiveEventObserver(observer);
-        EventObserverWrapper existing = wrapper;
-        if(!observers.containsKey(observer))existing = observers.put(observer, wrapper);
-        if (existing != null && existing instanceof EventLiveData.EventLifecycleBoundEventObserver) {
-            throw new IllegalArgumentException("Cannot add the same observer"
-                    + " with different lifecycles");
+        observeForever(observer, defaultDelivery(observer));
+    }
+
+    /**
+     * Same as {@link #observeForever(Observer)} but events are delivered to the observer on the given
+     * {@link Executor}, through a mailbox with {@link #DEFAULT_MAILBOX_CAPACITY} that drops the oldest
+     * pending event when full.
+     *
+     * @param observer The observer that will receive the events
+     * @param executor Executor on which observer is called
+     */
+    @MainThread
+    public void observeForever(@NonNull Observer<? super T> observer, @NonNull Executor executor) {
+        observeForever(observer, executor, DEFAULT_MAILBOX_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Same as {@link #observeForever(Observer)} but events are delivered to the observer on the given
+     * {@link Executor}. Mailbox is drained on the executor one event at a time, in order, so slow observer
+     * never blocks the main thread.
+     *
+     * @param observer The observer that will receive the events
+     * @param executor Executor on which observer is called
+     * @param mailboxCapacity maximum number of events waiting for the observer
+     * @param overflowPolicy what to do with event dispatched while mailbox is full
+     */
+    @MainThread
+    public void observeForever(@NonNull Observer<? super T> observer, @NonNull Executor executor, int mailboxCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        registry.assertNotNull(overflowPolicy, "overflowPolicy");
+        observeForever(observer, executor, BackpressureStrategy.of(overflowPolicy, mailboxCapacity));
+    }
+
+    /**
+     * Same as {@link #observeForever(Observer, Executor)} with explicit {@link BackpressureStrategy}.
+     *
+     * @param observer The observer that will receive the events
+     * @param executor Executor on which observer is called
+     * @param strategy what to do when events arrive faster than observer handles them
+     */
+    @MainThread
+    public void observeForever(@NonNull Observer<? super T> observer, @NonNull Executor executor, @NonNull BackpressureStrategy strategy) {
+        registry.assertNotNull(executor, "executor");
+        registry.assertNotNull(strategy, "strategy");
+        observeForever(observer, new EventMailbox<T>(toEventObserver(observer), executor, strategy, mailboxFailureHandler(observer)));
+    }
+
+    /**
+     * Same as {@link #observeForever(Observer)} but the observer is held through a weak reference. Once it is
+     * garbage collected it is removed before the next dispatch or registration, and if it was the last
+     * observer {@link #onInactive()} is called. Use for app scope EventLiveData observed by objects that
+     * never call {@link #removeObserver(Observer)}.
+     * <p>
+     * Caller has to keep a strong reference to the observer for as long as it should receive events,
+     * an anonymous observer that is referenced only from here is collected almost immediately.
+     *
+     * @param observer The observer that will receive the events
+     * @throws IllegalArgumentException if the observer is already registered strongly
+     */
+    @MainThread
+    public void observeForeverWeak(@NonNull Observer<? super T> observer) {
+        if (registry.observeForeverWeak(observer) && !super.hasObservers()) {
+            internalObserve();
         }
-        if (existing != null) {
-            return;
+    }
+
+    private void assertKeyed(Object key) {
+        registry.assertNotNull(key, "key");
+        if (mKeyExtractor == null) {
+            throw new IllegalStateException("Key extractor has to be set with setKeyExtractor before observing by key");
         }
-        if (!super.hasObservers()) {
+    }
+
+    private EventMailbox.FailureHandler mailboxFailureHandler(final Object observer) {
+        return new EventMailbox.FailureHandler() {
+            @Override
+            public void onMailboxFailed(EventMailbox<?> mailbox, final RuntimeException error) {
+                registry.removeObserver(observer);
+                // thrown from its own message, other observers still get the event being dispatched
+                getMainThreadScheduler().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        throw error;
+                    }
+                });
+            }
+        };
+    }
+
+    private void observeForever(@NonNull Observer<?> observer, EventDelivery<T> delivery) {
+        if (registry.observeForever(observer, delivery) && !super.hasObservers()) {
             internalObserve();
         }
-        wrapper.activeStateChanged(true);
     }
     /**
      {@inheritDoc}
      */
     @Override
     public void removeObservers(@NonNull  LifecycleOwner owner) {
-        assertMainThread("removeObservers");
-        assertNotNull(owner, "owner");
-        Iterator<Map.Entry<Observer<? super T>, EventObserverWrapper>> iterator = EventLiveData.this.observers.entrySet().iterator();
-        while (iterator.hasNext()){
-            Map.Entry<Observer<? super T>, EventObserverWrapper> entry=iterator.next();
-            if(entry.getValue() instanceof EventLiveData.EventLifecycleBoundEventObserver){
-                EventLifecycleBoundEventObserver eventLifecycleBoundObserver =(EventLifecycleBoundEventObserver) entry.getValue();
-                if(eventLifecycleBoundObserver.isAttachedTo(owner))this.observers.remove(entry.getKey());
-            }
-        }
+        registry.removeObservers(owner);
     }
     /**
      {@inheritDoc}
      */
     @Override
     public void removeObserver(@NonNull Observer observer) {
-        assertMainThread("removeObserver");
-        assertNotNull(observer, "observer");
-        this.observers.remove(observer);
+        registry.removeObserver(observer);
+    }
+
+    /**
+     * Forwards per observer timing from the core dispatch loop, allocated once per instance on first monitored dispatch.
+     */
+    private final class MonitorBridge implements EventDispatcher.Monitor {
+        EventLiveDataMonitor monitor;
+        long postNanos = -1;
+
+        @Override
+        public void onDelivered(EventSubscription<?> subscription, long startNanos, long durationNanos) {
+            long latency = postNanos < 0 ? -1 : startNanos + durationNanos - postNanos;
+            monitor.onObserverDispatched(EventLiveData.this, subscription.getObserver(), durationNanos, latency);
+        }
+    }
 
+    private static <T> EventObserver<T> toEventObserver(final Observer<T> observer) {
+        return new EventObserver<T>() {
+            @Override
+            public void onEvent(T event) {
+                observer.onChanged(event);
+            }
+        };
     }
     /** Final because OnActive is being used by superclass, override  {@link EventLiveData#onActiveEvent()} instead
      *<p>
@@ -322,7 +841,7 @@ public  class EventLiveData<T> extends LiveData<T> {
      */
     @SuppressWarnings("WeakerAccess")
     public boolean hasObservers() {
-        return observers.size() > 0;
+        return dispatcher.hasSubscriptions();
     }
 
     /**
@@ -330,185 +849,7 @@ public  class EventLiveData<T> extends LiveData<T> {
      */
     @SuppressWarnings("WeakerAccess")
     public boolean hasActiveObservers() {
-        return mActiveCount > 0;
-    }
-    class EventLifecycleBoundEventObserver extends EventObserverWrapper implements LifecycleObserver {
-        @NonNull
-        private final LifecycleOwner mOwner;
-        private Lifecycle.State MINIMUM_STATE_FOR_SENDING_EVENT= STARTED;
-        private Lifecycle.Event MAXIMUM_EVENT_FOR_REMOVING_EVENT= null;
-        EventLifecycleBoundEventObserver(@NonNull LifecycleOwner owner, Observer<? super T> observer) {
-            super(observer);
-            mOwner = owner;
-        }
-
-        public Lifecycle.State getMinimumStateForSendingEvent() {
-            return MINIMUM_STATE_FOR_SENDING_EVENT;
-        }
-
-        public Lifecycle.Event getMaximumStateForRemovingEvent() {
-            return MAXIMUM_EVENT_FOR_REMOVING_EVENT;
-        }
-
-        public void setMaximumEventForRemovingEvent(Lifecycle.Event MAXIMUM_EVENT_FOR_REMOVING_EVENT) {
-            this.MAXIMUM_EVENT_FOR_REMOVING_EVENT = MAXIMUM_EVENT_FOR_REMOVING_EVENT;
-        }
-
-        public void setMinimumStateForSendingEvent(Lifecycle.State MINIMUM_STATE_FOR_SENDING_EVENT) {
-            this.MINIMUM_STATE_FOR_SENDING_EVENT = MINIMUM_STATE_FOR_SENDING_EVENT;
-        }
-
-        @Override
-        boolean shouldBeActive() {
-            Lifecycle.State state=mOwner.getLifecycle().getCurrentState();
-            return state.isAtLeast(MINIMUM_STATE_FOR_SENDING_EVENT);
-        }
-
-        @OnLifecycleEvent(Lifecycle.Event.ON_ANY)
-        public void onStateChanged(LifecycleOwner source, Lifecycle.Event event) {
-            if (mOwner.getLifecycle().getCurrentState() == DESTROYED||(MAXIMUM_EVENT_FOR_REMOVING_EVENT!=null&&MAXIMUM_EVENT_FOR_REMOVING_EVENT==event)) {
-                removeObserver(mObserver);
-                return;
-            }
-            activeStateChanged(shouldBeActive());
-        }
-
-        @Override
-        boolean isAttachedTo(LifecycleOwner owner) {
-            return mOwner == owner;
-        }
-
-        @Override
-        void detachObserver() {
-            mOwner.getLifecycle().removeObserver(this);
-        }
-    }
-
-    private abstract class EventObserverWrapper {
-        protected final Observer<? super T> mObserver;
-        boolean mActive;
-
-        EventObserverWrapper(Observer<? super T> observer) {
-            mObserver = observer;
-        }
-
-        abstract boolean shouldBeActive();
-
-        boolean isAttachedTo(LifecycleOwner owner) {
-            return false;
-        }
-
-        void detachObserver() {
-        }
-
-        public Observer<? super T> getObserver() {
-            return mObserver;
-        }
-
-        void activeStateChanged(boolean newActive) {
-            if (newActive == mActive) {
-                return;
-            }
-            // immediately set active state, so we'd never dispatch anything to inactive
-            // owner
-            mActive = newActive;
-            boolean wasInactive = EventLiveData.this.mActiveCount == 0;
-            EventLiveData.this.mActiveCount += mActive ? 1 : -1;
-            if (wasInactive && mActive) {
-                onActiveEvent();
-            }
-            if (EventLiveData.this.mActiveCount == 0 && !mActive) {
-                onInactive();
-            }
-        }
-    }
-
-
-
-
-    private class EventAlwaysActiveEventObserver extends EventObserverWrapper {
-
-        EventAlwaysActiveEventObserver(Observer<? super T> observer) {
-            super(observer);
-        }
-
-        @Override
-        boolean shouldBeActive() {
-            return true;
-        }
-    }
-    private void assertDestroyedState(@NonNull Lifecycle.State minimumStateForSendingEvent){
-        if(minimumStateForSendingEvent==DESTROYED){
-            StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
-            StackTraceElement caller = stackTraceElements[3];
-            String className = caller.getClassName();
-            String methodName = caller.getMethodName();
-            IllegalArgumentException exception =
-                    new IllegalArgumentException("State can not be equal to "+ minimumStateForSendingEvent +
-                            "method " + className + "." + methodName +
-                            ", parameter   minimumStateForSendingEvent");
-            throw sanitizeStackTrace(exception);
-        }
-    }
-    private void assertMaximumEvent(@NonNull Lifecycle.Event maximumEventForRemovingEvent){
-        if(maximumEventForRemovingEvent== Lifecycle.Event.ON_START||maximumEventForRemovingEvent== Lifecycle.Event.ON_CREATE
-                ||maximumEventForRemovingEvent== Lifecycle.Event.ON_RESUME){
-            StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
-            StackTraceElement caller = stackTraceElements[3];
-            String className = caller.getClassName();
-            String methodName = caller.getMethodName();
-            IllegalArgumentException exception =
-                    new IllegalArgumentException("State can not be equal to "+maximumEventForRemovingEvent +
-                            "method " + className + "." + methodName +
-                            ", parameter  maximumEventForRemovingEvent" );
-            throw sanitizeStackTrace(exception);
-        }
-    }
-    private  void assertMainThread(String methodName) {
-        boolean isUiThread = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
-                ? Looper.getMainLooper().isCurrentThread()
-                : Thread.currentThread() == Looper.getMainLooper().getThread();
-        if (!isUiThread) {
-            throw new IllegalStateException("Cannot invoke " + methodName + " on a background"
-                    + " thread");
-        }
-    }
-
-    private  void assertNotNull(Object value, String paramName) {
-        if (value == null) {
-            throwParameterIsNullException(paramName);
-        }
-    }
-    private  void throwParameterIsNullException(String paramName) {
-        StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
-        StackTraceElement caller = stackTraceElements[3];
-        String className = caller.getClassName();
-        String methodName = caller.getMethodName();
-
-        IllegalArgumentException exception =
-                new IllegalArgumentException("Parameter specified as non-null is null: " +
-                        "method " + className + "." + methodName +
-                        ", parameter " + paramName);
-        throw sanitizeStackTrace(exception);
-    }
-    private   <T extends Throwable> T sanitizeStackTrace(T throwable) {
-        return sanitizeStackTrace(throwable, this.getClass().getName());
-    }
-
-    <T extends Throwable> T sanitizeStackTrace(T throwable, String classNameToDrop) {
-        StackTraceElement[] stackTrace = throwable.getStackTrace();
-        int size = stackTrace.length;
-
-        int lastIntrinsic = -1;
-        for (int i = 0; i < size; i++) {
-            if (classNameToDrop.equals(stackTrace[i].getClassName())) {
-                lastIntrinsic = i;
-            }
-        }
-
-        StackTraceElement[] newStackTrace = Arrays.copyOfRange(stackTrace, lastIntrinsic + 1, size);
-        throwable.setStackTrace(newStackTrace);
-        return throwable;
+        return dispatcher.getActiveCount() > 0;
     }
 }
 
@@ -0,0 +1,363 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.core.EventDispatcher;
+import com.rugovit.eventlivedata.core.EventPool;
+import com.rugovit.eventlivedata.core.EventPostQueue;
+import com.rugovit.eventlivedata.core.EventSubscription;
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+import com.rugovit.eventlivedata.core.PooledEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static androidx.lifecycle.Lifecycle.State.STARTED;
+
+/**
+ * Event bus with {@link EventLiveData} semantics: events are one-shot, observers are bound to a
+ * {@link LifecycleOwner} and receive only events sent while the owner is active.
+ * <p>
+ * Events are routed either by a topic key, compared with {@link Object#equals(Object)}, or by the
+ * event class. Observer of a class receives events of that class and of all its subclasses and
+ * implementations. Class hierarchy of every event class is resolved once, and the observers it
+ * reaches are kept in a table that is rebuilt only after some observer was activated or deactivated.
+ * <p>
+ * All topics share one observer registry and one dispatch loop, so a topic costs nothing until it
+ * is observed. Every observer instance can be registered for one topic or one event class only.
+ * <p>
+ * Posted events of all topics wait in one bounded lock-free queue, which is drained by a single main
+ * thread message no matter how many events were posted before it ran.
+ */
+public class EventLiveDataBus {
+
+    /**
+     * Post queue capacity used when capacity is not specified.
+     */
+    public static final int DEFAULT_POST_QUEUE_CAPACITY = 256;
+
+    private final EventObserverRegistry<Object> registry;
+    private final EventDispatcher<Object> dispatcher;
+    private final MainThreadScheduler mainThreadScheduler;
+    private final HashMap<Class<?>, RouteTable> routeTables = new HashMap<>();
+    private final EventPostQueue<Object> postQueue;
+    // topic posts are queued as pooled holders, so steady posting does not allocate
+    private final EventPool<TopicEvent> topicEventPool;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drainPostQueue();
+        }
+    };
+
+    /**
+     * Creates bus with post queue of {@link #DEFAULT_POST_QUEUE_CAPACITY} that drops the oldest event when full.
+     */
+    public EventLiveDataBus() {
+        this(DEFAULT_POST_QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * @param postQueueCapacity maximum number of posted events waiting for main thread, rounded up to the next power of two
+     * @param overflowPolicy    what to do with events posted while queue is full
+     */
+    public EventLiveDataBus(int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        this(AndroidMainThreadScheduler.getInstance(), postQueueCapacity, overflowPolicy);
+    }
+
+    EventLiveDataBus(MainThreadScheduler mainThreadScheduler, int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        this.registry = new EventObserverRegistry<>(this, mainThreadScheduler, null);
+        this.dispatcher = registry.getDispatcher();
+        this.mainThreadScheduler = mainThreadScheduler;
+        this.postQueue = new EventPostQueue<>(postQueueCapacity, overflowPolicy);
+        this.topicEventPool = new EventPool<>(postQueueCapacity, new EventPool.Factory<TopicEvent>() {
+            @Override
+            public TopicEvent create() {
+                return new TopicEvent();
+            }
+        });
+    }
+
+    /**
+     * Observes events sent for the topic while owner is at least {@link Lifecycle.State#STARTED}, same as
+     * {@link EventLiveData#observe(LifecycleOwner, Observer)}.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param topic    key events are sent for
+     * @param observer The observer that will receive the events
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Object topic, @NonNull Observer<?> observer) {
+        observe(owner, topic, observer, STARTED, null);
+    }
+
+    /**
+     * Same as {@link EventLiveData#observeInOnStart(LifecycleOwner, Observer)} for events sent for the topic,
+     * should be called in {@link Fragment#onStart()} method.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param topic    key events are sent for
+     * @param observer The observer that will receive the events
+     */
+    @MainThread
+    public void observeInOnStart(@NonNull LifecycleOwner owner, @NonNull Object topic, @NonNull Observer<?> observer) {
+        observe(owner, topic, observer, STARTED, Lifecycle.Event.ON_STOP);
+    }
+
+    /**
+     * Same as {@link EventLiveData#observe(LifecycleOwner, Observer, Lifecycle.State, Lifecycle.Event)} for events
+     * sent for the topic.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param topic    key events are sent for
+     * @param observer The observer that will receive the events
+     * @param minimumStateForSendingEvent minimum lifecycle state in what owner has to be for Observer to be updated
+     * @param removeObserverEvent maximum {@link Lifecycle.Event} that triggers removal of Event
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Object topic, @NonNull Observer<?> observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent) {
+        registry.assertNotNull(topic, "topic");
+        registry.observe(owner, observer, minimumStateForSendingEvent, removeObserverEvent, null, topic, 0, 0, 0);
+    }
+
+    /**
+     * Observes events sent for the topic until {@link #removeObserver(Observer)} is called.
+     *
+     * @param topic    key events are sent for
+     * @param observer The observer that will receive the events
+     */
+    @MainThread
+    public void observeForever(@NonNull Object topic, @NonNull Observer<?> observer) {
+        registry.assertNotNull(topic, "topic");
+        registry.observeForever(observer, null, topic);
+    }
+
+    /**
+     * Observes events of the class, its subclasses and implementations sent with {@link #send(Object)} or
+     * {@link #post(Object)}, same as {@link EventLiveData#observe(LifecycleOwner, Observer)}.
+     *
+     * @param owner      The LifecycleOwner which controls the observer
+     * @param eventClass class of events
+     * @param observer   The observer that will receive the events
+     */
+    @MainThread
+    public <E> void observe(@NonNull LifecycleOwner owner, @NonNull Class<E> eventClass, @NonNull Observer<? super E> observer) {
+        observe(owner, (Object) eventClass, observer, STARTED, null);
+    }
+
+    /**
+     * Same as {@link #observe(LifecycleOwner, Class, Observer)} with lifecycle range of
+     * {@link EventLiveData#observeInOnStart(LifecycleOwner, Observer)}.
+     *
+     * @param owner      The LifecycleOwner which controls the observer
+     * @param eventClass class of events
+     * @param observer   The observer that will receive the events
+     */
+    @MainThread
+    public <E> void observeInOnStart(@NonNull LifecycleOwner owner, @NonNull Class<E> eventClass, @NonNull Observer<? super E> observer) {
+        observe(owner, (Object) eventClass, observer, STARTED, Lifecycle.Event.ON_STOP);
+    }
+
+    /**
+     * Same as {@link #observe(LifecycleOwner, Class, Observer)} with lifecycle range of
+     * {@link EventLiveData#observe(LifecycleOwner, Observer, Lifecycle.State, Lifecycle.Event)}.
+     *
+     * @param owner      The LifecycleOwner which controls the observer
+     * @param eventClass class of events
+     * @param observer   The observer that will receive the events
+     * @param minimumStateForSendingEvent minimum lifecycle state in what owner has to be for Observer to be updated
+     * @param removeObserverEvent maximum {@link Lifecycle.Event} that triggers removal of Event
+     */
+    @MainThread
+    public <E> void observe(@NonNull LifecycleOwner owner, @NonNull Class<E> eventClass, @NonNull Observer<? super E> observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent) {
+        observe(owner, (Object) eventClass, observer, minimumStateForSendingEvent, removeObserverEvent);
+    }
+
+    /**
+     * Observes events of the class, its subclasses and implementations until {@link #removeObserver(Observer)} is called.
+     *
+     * @param eventClass class of events
+     * @param observer   The observer that will receive the events
+     */
+    @MainThread
+    public <E> void observeForever(@NonNull Class<E> eventClass, @NonNull Observer<? super E> observer) {
+        observeForever((Object) eventClass, observer);
+    }
+
+    /**
+     * Removes the given observer regardless of its topic.
+     *
+     * @param observer The observer to be removed
+     */
+    @MainThread
+    public void removeObserver(@NonNull Observer<?> observer) {
+        registry.removeObserver(observer);
+    }
+
+    /**
+     * Removes all observers bound to the given owner.
+     *
+     * @param owner The LifecycleOwner scope for the observers to be removed.
+     */
+    @MainThread
+    public void removeObservers(@NonNull LifecycleOwner owner) {
+        registry.removeObservers(owner);
+    }
+
+    /**
+     * Delivers the event to active observers of the topic, must be called from the main thread. Topic is
+     * matched exactly, class hierarchy is not resolved even if topic is a class.
+     *
+     * @param topic key of the event
+     * @param event The event, may be null
+     */
+    @MainThread
+    public void send(@NonNull Object topic, Object event) {
+        registry.assertMainThread("send");
+        registry.assertNotNull(topic, "topic");
+        dispatcher.dispatch(topic, event);
+    }
+
+    /**
+     * Delivers the event to active observers of its class and of all its superclasses and interfaces,
+     * must be called from the main thread.
+     *
+     * @param event The event
+     */
+    @MainThread
+    public void send(@NonNull Object event) {
+        registry.assertMainThread("send");
+        registry.assertNotNull(event, "event");
+        Class<?> eventClass = event.getClass();
+        RouteTable table = routeTables.get(eventClass);
+        if (table == null) {
+            table = new RouteTable(hierarchyOf(eventClass));
+            routeTables.put(eventClass, table);
+        }
+        if (table.version != dispatcher.getActiveVersion()) {
+            table.subscriptions = dispatcher.collectActive(table.keys);
+            table.version = dispatcher.getActiveVersion();
+        }
+        dispatcher.dispatchTo(table.subscriptions, event);
+    }
+
+    /**
+     * Queues the event to be {@link #send(Object, Object) sent} on the main thread. Events posted from one thread
+     * are sent in the order they were posted, none of them is merged, they are dropped only if the post
+     * queue overflows.
+     *
+     * @param topic key of the event
+     * @param event The event, may be null
+     */
+    public void post(@NonNull Object topic, Object event) {
+        registry.assertNotNull(topic, "topic");
+        TopicEvent topicEvent = topicEventPool.obtain();
+        topicEvent.topic = topic;
+        topicEvent.event = event;
+        enqueue(topicEvent);
+    }
+
+    /**
+     * Queues the event to be {@link #send(Object) sent} on the main thread, in the same order as
+     * {@link #post(Object, Object)}.
+     *
+     * @param event The event
+     */
+    public void post(@NonNull Object event) {
+        registry.assertNotNull(event, "event");
+        enqueue(event);
+    }
+
+    /**
+     * @return number of posted events dropped by the {@link OverflowPolicy} since creation
+     */
+    public long getDroppedEventCount() {
+        return postQueue.getDroppedCount();
+    }
+
+    private void enqueue(Object posted) {
+        postQueue.offer(posted);
+        if (drainScheduled.compareAndSet(false, true)) {
+            mainThreadScheduler.post(drainRunnable);
+        }
+    }
+
+    private void drainPostQueue() {
+        drainScheduled.set(false);
+        // events posted while draining are left for the next message so main thread is never starved
+        int budget = postQueue.capacity();
+        Object posted;
+        while (budget-- > 0 && (posted = postQueue.poll()) != null) {
+            if (posted instanceof TopicEvent) {
+                TopicEvent topicEvent = (TopicEvent) posted;
+                Object topic = topicEvent.topic;
+                Object event = topicEvent.event;
+                topicEvent.topic = null;
+                topicEvent.event = null;
+                topicEvent.release();
+                send(topic, event);
+            } else {
+                send(posted);
+            }
+        }
+        if (!postQueue.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            mainThreadScheduler.post(drainRunnable);
+        }
+    }
+
+    public boolean hasObservers() {
+        return dispatcher.hasSubscriptions();
+    }
+
+    public boolean hasActiveObservers() {
+        return dispatcher.getActiveCount() > 0;
+    }
+
+    /**
+     * @return the class, all its superclasses and all interfaces they implement
+     */
+    private static Object[] hierarchyOf(Class<?> eventClass) {
+        ArrayList<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> type = eventClass; type != null; type = type.getSuperclass()) {
+            hierarchy.add(type);
+        }
+        // interfaces are added while walking, so interfaces of interfaces are visited too
+        for (int i = 0; i < hierarchy.size(); i++) {
+            for (Class<?> implemented : hierarchy.get(i).getInterfaces()) {
+                if (!hierarchy.contains(implemented)) {
+                    hierarchy.add(implemented);
+                }
+            }
+        }
+        return hierarchy.toArray();
+    }
+
+    /**
+     * Topic and event queued by {@link #post(Object, Object)}, dropped holders are left to the garbage collector.
+     */
+    private static final class TopicEvent extends PooledEvent {
+        Object topic;
+        Object event;
+    }
+
+    /**
+     * Active observers reached by events of one class.
+     */
+    private static final class RouteTable {
+        final Object[] keys;
+        long version = -1;
+        EventSubscription<Object>[] subscriptions;
+
+        RouteTable(Object[] keys) {
+            this.keys = keys;
+        }
+    }
+}
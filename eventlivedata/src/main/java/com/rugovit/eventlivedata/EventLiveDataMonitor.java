@@ -0,0 +1,61 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+
+/**
+ * Instrumentation hook for {@link EventLiveData}, override only the callbacks you need.
+ * <p>
+ * Set it for all instances with {@link EventLiveData#setGlobalMonitor(EventLiveDataMonitor)} or for one
+ * instance with {@link EventLiveData#setMonitor(EventLiveDataMonitor)}. Without a monitor the dispatch
+ * path does not read the clock and allocates nothing.
+ * <p>
+ * All callbacks are called on the main thread, inside the dispatch, so they should be cheap.
+ */
+public abstract class EventLiveDataMonitor {
+
+    /**
+     * Called after an event was dispatched to all active observers.
+     *
+     * @param source              instance that dispatched the event
+     * @param durationNanos       time spent in the whole dispatch loop
+     * @param observerCount       number of registered observers
+     * @param activeObserverCount number of active observers
+     */
+    @MainThread
+    public void onEventDispatched(@NonNull EventLiveData<?> source, long durationNanos, int observerCount, int activeObserverCount) {
+    }
+
+    /**
+     * Called after one observer received the event.
+     *
+     * @param source           instance that dispatched the event
+     * @param observer         observer that received the event
+     * @param durationNanos    time spent in that observer, or in handing the event over to its executor or batch
+     * @param postLatencyNanos time between {@link MutableEventLiveData#postValue(Object)} and this delivery,
+     *                         -1 if event was set with {@link MutableEventLiveData#setValue(Object)}
+     */
+    @MainThread
+    public void onObserverDispatched(@NonNull EventLiveData<?> source, @NonNull Object observer, long durationNanos, long postLatencyNanos) {
+    }
+
+    /**
+     * Called when event was dispatched while there were no active observers. One-shot events are
+     * never replayed, so such event is lost.
+     */
+    @MainThread
+    public void onEventLost(@NonNull EventLiveData<?> source) {
+    }
+
+    /**
+     * Called when {@link MutableEventLiveData#postValue(Object)} merged several posted events the way
+     * {@link LiveData#postValue(Object)} does and only the last one was dispatched. Lossless post queue never coalesces, its drops are reported by
+     * {@link MutableEventLiveData#getDroppedEventCount()}.
+     *
+     * @param coalescedCount number of posted events that were never dispatched
+     */
+    @MainThread
+    public void onPostCoalesced(@NonNull EventLiveData<?> source, int coalescedCount) {
+    }
+}
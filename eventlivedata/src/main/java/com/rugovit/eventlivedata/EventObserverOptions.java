@@ -0,0 +1,127 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.Observer;
+
+import static androidx.lifecycle.Lifecycle.State.STARTED;
+
+/**
+ * Registration options for {@link EventLiveData#observe(LifecycleOwner, Observer, EventObserverOptions)} and
+ * {@link EventLiveData#observeForever(Observer, EventObserverOptions)}, so key, priority, pending buffer and
+ * lifecycle range can be combined without an overload for every combination.
+ * <p>
+ * Options are read when the observer is registered, one instance can be reused for several registrations.
+ *
+ * <pre>
+ * events.observe(this, observer, new EventObserverOptions()
+ *         .key(item.id)
+ *         .priority(10)
+ *         .pendingBuffer(4, 5000)
+ *         .removeOn(Lifecycle.Event.ON_STOP));
+ * </pre>
+ */
+public final class EventObserverOptions {
+
+    private Object key;
+    private int priority;
+    private int pendingBufferSize;
+    private long pendingEventTtlMillis;
+    private Lifecycle.State minimumState = STARTED;
+    private Lifecycle.Event removeObserverEvent;
+
+    /**
+     * Observer receives only events whose key, extracted with the function set by
+     * {@link EventLiveData#setKeyExtractor(androidx.arch.core.util.Function)}, equals the given key. Dispatch
+     * finds keyed observers by index, so an event is not delivered to observers of other keys at all.
+     *
+     * @param key key of events observer receives, null to receive events regardless of their key
+     */
+    @NonNull
+    public EventObserverOptions key(Object key) {
+        this.key = key;
+        return this;
+    }
+
+    /**
+     * Observers with higher priority receive every event before observers with lower priority, observers with
+     * equal priority are called in the order they were registered. Observer can stop the event from reaching
+     * observers after it with {@link EventLiveData#consumeEvent()}.
+     *
+     * @param priority dispatch priority, higher is called first, 0 by default
+     */
+    @NonNull
+    public EventObserverOptions priority(int priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Events dispatched while owner is below the minimum state are kept and delivered in order as soon as it
+     * reaches the minimum state again. Every event is still delivered at most once. Not used by forever
+     * observers, they are always active.
+     *
+     * @param size      maximum number of events kept while observer is inactive, the oldest one is dropped when full
+     * @param ttlMillis time after which kept event is dropped instead of delivered, 0 for no limit
+     */
+    @NonNull
+    public EventObserverOptions pendingBuffer(int size, long ttlMillis) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pending buffer size must be positive, was " + size);
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("Pending event ttl must not be negative, was " + ttlMillis);
+        }
+        this.pendingBufferSize = size;
+        this.pendingEventTtlMillis = ttlMillis;
+        return this;
+    }
+
+    /**
+     * @param state minimum lifecycle state in what owner has to be for Observer to be updated, {@link Lifecycle.State#STARTED} by default
+     */
+    @NonNull
+    public EventObserverOptions minimumState(@NonNull Lifecycle.State state) {
+        if (state == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: state");
+        }
+        this.minimumState = state;
+        return this;
+    }
+
+    /**
+     * @param event maximum {@link Lifecycle.Event} that triggers removal of the observer,
+     *              {@link Lifecycle.Event#ON_STOP} gives {@link EventLiveData#observeInOnStart(LifecycleOwner, Observer)},
+     *              null to remove it only when owner is destroyed
+     */
+    @NonNull
+    public EventObserverOptions removeOn(Lifecycle.Event event) {
+        this.removeObserverEvent = event;
+        return this;
+    }
+
+    Object getKey() {
+        return key;
+    }
+
+    int getPriority() {
+        return priority;
+    }
+
+    int getPendingBufferSize() {
+        return pendingBufferSize;
+    }
+
+    long getPendingEventTtlMillis() {
+        return pendingEventTtlMillis;
+    }
+
+    Lifecycle.State getMinimumState() {
+        return minimumState;
+    }
+
+    Lifecycle.Event getRemoveObserverEvent() {
+        return removeObserverEvent;
+    }
+}
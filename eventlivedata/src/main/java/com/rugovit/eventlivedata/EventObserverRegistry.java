@@ -0,0 +1,530 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.core.EventDelivery;
+import com.rugovit.eventlivedata.core.EventDispatcher;
+import com.rugovit.eventlivedata.core.EventSubscription;
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static androidx.lifecycle.Lifecycle.State.DESTROYED;
+import static androidx.lifecycle.Lifecycle.State.STARTED;
+
+/**
+ * Lifecycle side of {@link EventLiveData}: binds observers to their {@link LifecycleOwner}s and keeps them
+ * registered in the core {@link EventDispatcher}, activating and removing them on lifecycle transitions.
+ * <p>
+ * Shared by {@link EventLiveData} and its primitive specializations, so observe and observeInOnStart
+ * behave the same for all of them. Observers are kept as plain objects, subscriptions created here
+ * deliver events only to {@link Observer}s, primitive variants walk {@link EventDispatcher#getActiveSnapshot()}
+ * themselves.
+ *
+ * @param <T> type of events dispatched through the registry
+ */
+final class EventObserverRegistry<T> {
+
+    private static final String PACKAGE_NAME = EventObserverRegistry.class.getPackage().getName();
+
+    private final Object source;
+    private final EventDispatcher<T> dispatcher;
+    /**
+     * One lifecycle registration per {@link LifecycleOwner}, it flips all observers bound to that owner.
+     */
+    private final HashMap<LifecycleOwner, EventOwnerBinding> ownerBindings = new HashMap<>();
+    /**
+     * Collected weak observers, created with the first weak observer.
+     */
+    private ReferenceQueue<Object> collectedObservers;
+    private boolean foreverLimitReported;
+
+    /**
+     * @param source              public object observers are registered on, reported to {@link EventLeakDetector}
+     * @param mainThreadScheduler thread observers are called on
+     */
+    EventObserverRegistry(Object source, MainThreadScheduler mainThreadScheduler, EventDispatcher.ActiveStateListener listener) {
+        this.source = source;
+        this.dispatcher = new EventDispatcher<>(mainThreadScheduler, listener);
+    }
+
+    EventDispatcher<T> getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Registers observer bound to the owner, see {@link EventLiveData#observe(LifecycleOwner, Observer, Lifecycle.State, Lifecycle.Event)}.
+     *
+     * @return true if observer was added by this call
+     */
+    boolean observe(@NonNull LifecycleOwner owner, @NonNull Object observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent, EventDelivery<T> delivery) {
+        return observe(owner, observer, minimumStateForSendingEvent, removeObserverEvent, delivery, null, 0, 0, 0);
+    }
+
+    /**
+     * Same as {@link #observe(LifecycleOwner, Object, Lifecycle.State, Lifecycle.Event, EventDelivery)} with
+     * subscription key and pending buffer for events dispatched while owner is below minimumStateForSendingEvent.
+     *
+     * @param key                   key of events observer receives, null for all events
+     * @param pendingBufferSize     maximum number of pending events, 0 for no buffer
+     * @param pendingEventTtlMillis time to live of pending event, 0 for no limit
+     * @param priority              dispatch priority, see {@link EventSubscription#setPriority(int)}
+     * @return true if observer was added by this call
+     */
+    boolean observe(@NonNull LifecycleOwner owner, @NonNull Object observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent, EventDelivery<T> delivery,
+                    Object key, int pendingBufferSize, long pendingEventTtlMillis, int priority) {
+        assertMainThread("observe");
+        purgeCollected();
+        assertNotNull(owner, "owner");
+        assertNotNull(observer, "observer");
+        assertNotNull(minimumStateForSendingEvent, "minimumStateForSendingEvent");
+        assertDestroyedState(minimumStateForSendingEvent);
+        assertMaximumEvent(removeObserverEvent);
+
+        if (owner.getLifecycle().getCurrentState() == DESTROYED) {
+            return false;
+        }
+
+        EventObserverWrapper existing = (EventObserverWrapper) dispatcher.find(observer);
+        if (existing != null && !existing.isAttachedTo(owner)) {
+            throw new IllegalArgumentException("Cannot add the same observer"
+                    + " with different lifecycles");
+        }
+        if (existing != null) {
+            return false;
+        }
+        EventLifecycleBoundEventObserver wrapper = new EventLifecycleBoundEventObserver(owner, observer, delivery);
+        wrapper.setMinimumStateForSendingEvent(minimumStateForSendingEvent);
+        wrapper.setMaximumEventForRemovingEvent(removeObserverEvent);
+        wrapper.setKey(key);
+        wrapper.setPriority(priority);
+        if (pendingBufferSize != 0) {
+            wrapper.setPendingBuffer(pendingBufferSize, pendingEventTtlMillis);
+        }
+        dispatcher.add(wrapper);
+        EventOwnerBinding binding = ownerBindings.get(owner);
+        if (binding == null) {
+            binding = new EventOwnerBinding(owner);
+            ownerBindings.put(owner, binding);
+            binding.add(wrapper);
+            owner.getLifecycle().addObserver(binding);
+        } else {
+            binding.add(wrapper);
+            wrapper.onStateChanged(owner.getLifecycle().getCurrentState(), null);
+        }
+        EventLeakDetector leakDetector = EventLiveData.getLeakDetector();
+        if (leakDetector != null && leakDetector.sample()) {
+            checkForLeaks(leakDetector, binding, wrapper);
+        }
+        return true;
+    }
+
+    private void checkForLeaks(EventLeakDetector leakDetector, EventOwnerBinding binding, EventLifecycleBoundEventObserver added) {
+        EventLifecycleBoundEventObserver[] wrappers = binding.mWrappers;
+        if (wrappers.length == 0) {
+            // removed right away by the lifecycle state it was added in
+            return;
+        }
+        // only sampled registrations have a call site, so with sampling only sampled ones are compared
+        added.mCallSite = callSite();
+        int sameSite = 0;
+        for (EventLifecycleBoundEventObserver wrapper : wrappers) {
+            if (added.mCallSite != null && added.mCallSite.equals(wrapper.mCallSite)) {
+                sameSite++;
+            }
+        }
+        if (sameSite > 1) {
+            leakDetector.reportDuplicate(source, binding.mOwner, added.mCallSite, sameSite);
+        }
+        if (!binding.mLimitReported && leakDetector.isOverLimit(wrappers.length)) {
+            binding.mLimitReported = true;
+            leakDetector.reportLimitExceeded(source, binding.mOwner, added.mCallSite, wrappers.length);
+        }
+    }
+
+    private void checkForeverForLeaks(EventLeakDetector leakDetector, EventAlwaysActiveEventObserver added) {
+        added.mCallSite = callSite();
+        int foreverCount = 0;
+        int sameSite = 0;
+        for (EventSubscription<T> subscription : dispatcher.getSubscriptionSnapshot()) {
+            if (subscription instanceof EventObserverRegistry.EventAlwaysActiveEventObserver) {
+                foreverCount++;
+                if (added.mCallSite != null && added.mCallSite.equals(((EventObserverWrapper) subscription).mCallSite)) {
+                    sameSite++;
+                }
+            }
+        }
+        if (sameSite > 1) {
+            leakDetector.reportDuplicate(source, null, added.mCallSite, sameSite);
+        }
+        if (!leakDetector.isOverLimit(foreverCount)) {
+            foreverLimitReported = false;
+        } else if (!foreverLimitReported) {
+            foreverLimitReported = true;
+            leakDetector.reportLimitExceeded(source, null, added.mCallSite, foreverCount);
+        }
+    }
+
+    /**
+     * Registers always active observer.
+     *
+     * @return true if observer was added by this call
+     */
+    boolean observeForever(@NonNull Object observer, EventDelivery<T> delivery) {
+        return observeForever(observer, delivery, null);
+    }
+
+    /**
+     * Registers always active observer that receives only events dispatched for the key.
+     *
+     * @param key key of events observer receives, null for all events
+     * @return true if observer was added by this call
+     */
+    boolean observeForever(@NonNull Object observer, EventDelivery<T> delivery, Object key) {
+        return observeForever(observer, delivery, key, 0, false);
+    }
+
+    /**
+     * Registers always active observer with dispatch priority, see {@link EventSubscription#setPriority(int)}.
+     *
+     * @return true if observer was added by this call
+     */
+    boolean observeForever(@NonNull Object observer, EventDelivery<T> delivery, Object key, int priority) {
+        return observeForever(observer, delivery, key, priority, false);
+    }
+
+    /**
+     * Registers always active observer held through a weak reference, it is removed once it is collected.
+     *
+     * @return true if observer was added by this call
+     */
+    boolean observeForeverWeak(@NonNull Object observer) {
+        return observeForever(observer, null, null, 0, true);
+    }
+
+    private boolean observeForever(Object observer, EventDelivery<T> delivery, Object key, int priority, boolean weak) {
+        assertMainThread(weak ? "observeForeverWeak" : "observeForever");
+        purgeCollected();
+        assertNotNull(observer, "observer");
+        EventSubscription<T> existing = dispatcher.find(observer);
+        if (existing instanceof EventObserverRegistry.EventLifecycleBoundEventObserver) {
+            throw new IllegalArgumentException("Cannot add the same observer"
+                    + " with different lifecycles");
+        }
+        if (existing != null && existing.isObserverWeak() != weak) {
+            throw new IllegalArgumentException("Cannot add the same observer"
+                    + " both weakly and strongly");
+        }
+        if (existing != null) {
+            return false;
+        }
+        EventAlwaysActiveEventObserver wrapper;
+        if (weak) {
+            if (collectedObservers == null) {
+                collectedObservers = new ReferenceQueue<>();
+            }
+            wrapper = new EventAlwaysActiveEventObserver(observer, collectedObservers);
+        } else {
+            wrapper = new EventAlwaysActiveEventObserver(observer, delivery);
+        }
+        wrapper.setKey(key);
+        wrapper.setPriority(priority);
+        dispatcher.add(wrapper);
+        wrapper.setActive(true);
+        EventLeakDetector leakDetector = EventLiveData.getLeakDetector();
+        if (leakDetector != null && leakDetector.sample()) {
+            checkForeverForLeaks(leakDetector, wrapper);
+        }
+        return true;
+    }
+
+    /**
+     * Removes weak observers that were collected, deactivating the last one calls onInactive.
+     * Costs one null check while no weak observer was ever registered.
+     */
+    void purgeCollected() {
+        if (collectedObservers != null) {
+            dispatcher.purgeCollected(collectedObservers);
+        }
+    }
+
+    void removeObservers(@NonNull LifecycleOwner owner) {
+        assertMainThread("removeObservers");
+        assertNotNull(owner, "owner");
+        EventOwnerBinding binding = ownerBindings.remove(owner);
+        if (binding == null) {
+            return;
+        }
+        owner.getLifecycle().removeObserver(binding);
+        dispatcher.removeAll(binding.mWrappers);
+    }
+
+    void removeObserver(@NonNull Object observer) {
+        assertMainThread("removeObserver");
+        assertNotNull(observer, "observer");
+        dispatcher.remove(observer);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private EventLifecycleBoundEventObserver[] newBoundWrapperArray(int size) {
+        return new EventObserverRegistry.EventLifecycleBoundEventObserver[size];
+    }
+
+    class EventLifecycleBoundEventObserver extends EventObserverWrapper {
+        @NonNull
+        private final LifecycleOwner mOwner;
+        private Lifecycle.State MINIMUM_STATE_FOR_SENDING_EVENT= STARTED;
+        private Lifecycle.Event MAXIMUM_EVENT_FOR_REMOVING_EVENT= null;
+        // already dropped from its owner binding by a bulk removal
+        private boolean mDetached;
+        EventLifecycleBoundEventObserver(@NonNull LifecycleOwner owner, Object observer, EventDelivery<T> delivery) {
+            super(observer, delivery);
+            mOwner = owner;
+        }
+
+        public Lifecycle.State getMinimumStateForSendingEvent() {
+            return MINIMUM_STATE_FOR_SENDING_EVENT;
+        }
+
+        public Lifecycle.Event getMaximumStateForRemovingEvent() {
+            return MAXIMUM_EVENT_FOR_REMOVING_EVENT;
+        }
+
+        public void setMaximumEventForRemovingEvent(Lifecycle.Event MAXIMUM_EVENT_FOR_REMOVING_EVENT) {
+            this.MAXIMUM_EVENT_FOR_REMOVING_EVENT = MAXIMUM_EVENT_FOR_REMOVING_EVENT;
+        }
+
+        public void setMinimumStateForSendingEvent(Lifecycle.State MINIMUM_STATE_FOR_SENDING_EVENT) {
+            this.MINIMUM_STATE_FOR_SENDING_EVENT = MINIMUM_STATE_FOR_SENDING_EVENT;
+        }
+
+        @Override
+        boolean shouldBeActive() {
+            Lifecycle.State state=mOwner.getLifecycle().getCurrentState();
+            return state.isAtLeast(MINIMUM_STATE_FOR_SENDING_EVENT);
+        }
+
+        void onStateChanged(@NonNull Lifecycle.State state, Lifecycle.Event event) {
+            if (state == DESTROYED || isRemovedBy(event)) {
+                removeObserver(getObserver());
+                return;
+            }
+            setActive(state.isAtLeast(MINIMUM_STATE_FOR_SENDING_EVENT));
+        }
+
+        boolean isRemovedBy(Lifecycle.Event event) {
+            return MAXIMUM_EVENT_FOR_REMOVING_EVENT != null && MAXIMUM_EVENT_FOR_REMOVING_EVENT == event;
+        }
+
+        @Override
+        boolean isAttachedTo(LifecycleOwner owner) {
+            return mOwner == owner;
+        }
+
+        @Override
+        void detachObserver() {
+            if (mDetached) {
+                return;
+            }
+            EventOwnerBinding binding = ownerBindings.get(mOwner);
+            if (binding != null && binding.remove(this)) {
+                ownerBindings.remove(mOwner);
+                mOwner.getLifecycle().removeObserver(binding);
+            }
+        }
+    }
+
+    /**
+     * Single lifecycle observer registered for all {@link EventLifecycleBoundEventObserver}s of one owner.
+     */
+    private class EventOwnerBinding implements LifecycleEventObserver {
+        @NonNull
+        private final LifecycleOwner mOwner;
+        private EventLifecycleBoundEventObserver[] mWrappers = newBoundWrapperArray(0);
+        private boolean mLimitReported;
+
+        EventOwnerBinding(@NonNull LifecycleOwner owner) {
+            mOwner = owner;
+        }
+
+        void add(EventLifecycleBoundEventObserver wrapper) {
+            EventLifecycleBoundEventObserver[] added = Arrays.copyOf(mWrappers, mWrappers.length + 1);
+            added[mWrappers.length] = wrapper;
+            mWrappers = added;
+        }
+
+        /**
+         * @return true if there are no more observers bound to the owner
+         */
+        boolean remove(EventLifecycleBoundEventObserver wrapper) {
+            EventLifecycleBoundEventObserver[] snapshot = mWrappers;
+            for (int i = 0; i < snapshot.length; i++) {
+                if (snapshot[i] == wrapper) {
+                    EventLifecycleBoundEventObserver[] remaining = newBoundWrapperArray(snapshot.length - 1);
+                    System.arraycopy(snapshot, 0, remaining, 0, i);
+                    System.arraycopy(snapshot, i + 1, remaining, i, snapshot.length - i - 1);
+                    mWrappers = remaining;
+                    break;
+                }
+            }
+            return mWrappers.length == 0;
+        }
+
+        @Override
+        public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+            Lifecycle.State state = mOwner.getLifecycle().getCurrentState();
+            EventLifecycleBoundEventObserver[] snapshot = mWrappers;
+            int removedCount = 0;
+            for (EventLifecycleBoundEventObserver wrapper : snapshot) {
+                if (state == DESTROYED || wrapper.isRemovedBy(event)) {
+                    removedCount++;
+                }
+            }
+            if (removedCount > 0) {
+                // removed with a single copy of the dispatcher registry, cost depends on this owner's observers only
+                EventLifecycleBoundEventObserver[] removed = newBoundWrapperArray(removedCount);
+                EventLifecycleBoundEventObserver[] remaining = newBoundWrapperArray(snapshot.length - removedCount);
+                int r = 0;
+                int k = 0;
+                for (EventLifecycleBoundEventObserver wrapper : snapshot) {
+                    if (state == DESTROYED || wrapper.isRemovedBy(event)) {
+                        wrapper.mDetached = true;
+                        removed[r++] = wrapper;
+                    } else {
+                        remaining[k++] = wrapper;
+                    }
+                }
+                mWrappers = remaining;
+                if (remaining.length == 0) {
+                    ownerBindings.remove(mOwner);
+                    mOwner.getLifecycle().removeObserver(this);
+                }
+                dispatcher.removeAll(removed);
+                snapshot = remaining;
+            }
+            for (int i = 0; i < snapshot.length; i++) {
+                if (!snapshot[i].isRemoved()) {
+                    snapshot[i].setActive(state.isAtLeast(snapshot[i].getMinimumStateForSendingEvent()));
+                }
+            }
+        }
+    }
+
+    private abstract class EventObserverWrapper extends EventSubscription<T> {
+        // code that registered the observer, recorded for registrations sampled by EventLeakDetector
+        StackTraceElement mCallSite;
+
+        EventObserverWrapper(Object observer, EventDelivery<T> delivery) {
+            super(observer, delivery);
+        }
+
+        EventObserverWrapper(Object observer, ReferenceQueue<Object> referenceQueue) {
+            super(observer, null, referenceQueue);
+        }
+
+        abstract boolean shouldBeActive();
+
+        boolean isAttachedTo(LifecycleOwner owner) {
+            return false;
+        }
+
+        void detachObserver() {
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected void onEvent(T t) {
+            Observer<? super T> observer = (Observer<? super T>) getObserver();
+            if (observer != null) {
+                // weak observer collected after this dispatch started is purged before the next one
+                observer.onChanged(t);
+            }
+        }
+
+        @Override
+        protected void onRemoved() {
+            detachObserver();
+        }
+    }
+
+    private class EventAlwaysActiveEventObserver extends EventObserverWrapper {
+
+        EventAlwaysActiveEventObserver(Object observer, EventDelivery<T> delivery) {
+            super(observer, delivery);
+        }
+
+        EventAlwaysActiveEventObserver(Object observer, ReferenceQueue<Object> referenceQueue) {
+            super(observer, referenceQueue);
+        }
+
+        @Override
+        boolean shouldBeActive() {
+            return true;
+        }
+    }
+
+    void assertMainThread(String methodName) {
+        dispatcher.assertMainThread(methodName);
+    }
+
+    void assertNotNull(Object value, String paramName) {
+        if (value == null) {
+            throw illegalArgument("Parameter specified as non-null is null: ", "parameter " + paramName);
+        }
+    }
+
+    private void assertDestroyedState(@NonNull Lifecycle.State minimumStateForSendingEvent){
+        if(minimumStateForSendingEvent==DESTROYED){
+            throw illegalArgument("State can not be equal to " + minimumStateForSendingEvent + " ", "parameter minimumStateForSendingEvent");
+        }
+    }
+
+    private void assertMaximumEvent(Lifecycle.Event maximumEventForRemovingEvent){
+        if(maximumEventForRemovingEvent== Lifecycle.Event.ON_START||maximumEventForRemovingEvent== Lifecycle.Event.ON_CREATE
+                ||maximumEventForRemovingEvent== Lifecycle.Event.ON_RESUME){
+            throw illegalArgument("Event can not be equal to " + maximumEventForRemovingEvent + " ", "parameter removeObserverEvent");
+        }
+    }
+
+    /**
+     * Builds exception that names the public library method that was called and has library frames
+     * dropped from its stack trace, so it points at the calling code.
+     */
+    private static IllegalArgumentException illegalArgument(String message, String parameter) {
+        IllegalArgumentException exception = new IllegalArgumentException(message);
+        StackTraceElement[] stackTrace = exception.getStackTrace();
+        int lastIntrinsic = -1;
+        for (int i = 0; i < stackTrace.length; i++) {
+            if (isLibraryClass(stackTrace[i].getClassName())) {
+                lastIntrinsic = i;
+            }
+        }
+        String method = lastIntrinsic < 0 ? "" : "method " + stackTrace[lastIntrinsic].getClassName() + "." + stackTrace[lastIntrinsic].getMethodName() + ", ";
+        IllegalArgumentException sanitized = new IllegalArgumentException(message + method + parameter);
+        sanitized.setStackTrace(Arrays.copyOfRange(stackTrace, lastIntrinsic + 1, stackTrace.length));
+        return sanitized;
+    }
+
+    /**
+     * @return first stack frame outside of the library, null if stack trace is not available
+     */
+    static StackTraceElement callSite() {
+        StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+        for (StackTraceElement element : stackTrace) {
+            if (!isLibraryClass(element.getClassName())) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isLibraryClass(String className) {
+        return className.startsWith(PACKAGE_NAME) && className.lastIndexOf('.') == PACKAGE_NAME.length();
+    }
+}
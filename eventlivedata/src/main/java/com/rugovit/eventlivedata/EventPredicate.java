@@ -0,0 +1,15 @@
+package com.rugovit.eventlivedata;
+
+/**
+ * Decides if an event passes {@link EventTransformations#filter(EventLiveData, EventPredicate)}.
+ *
+ * @param <T> type of events
+ */
+public interface EventPredicate<T> {
+
+    /**
+     * @param event The event
+     * @return true to emit the event, false to drop it
+     */
+    boolean test(T event);
+}
@@ -0,0 +1,258 @@
+package com.rugovit.eventlivedata;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+/**
+ * Hashed timer wheel shared by all timed operators in {@link EventTransformations}.
+ * <p>
+ * Every operator owns one reusable {@link Task} which is rescheduled or cancelled in O(1) without
+ * allocating, and the whole wheel is driven by a single main looper callback posted for the earliest
+ * pending deadline, so the looper is woken only when some task is due. Timer resolution is {@link #TICK_MS}.
+ * <p>
+ * {@link #getDefault()} is driven by the main looper. Timer created with
+ * {@link #EventTimer(EventClock)} is driven manually with {@link #advance()}, which together with
+ * custom {@link EventClock} makes timing fully deterministic in tests.
+ * <p>
+ * Timer is not thread safe, it must be used only on the main thread.
+ */
+public final class EventTimer {
+
+    static final long TICK_MS = 10;
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static EventTimer defaultTimer;
+
+    private final EventClock clock;
+    private final TickScheduler tickScheduler;
+    private final Task[] wheel = new Task[WHEEL_SIZE];
+    private final long startTime;
+    private long processedTick;
+    private int pendingCount;
+    // uptime the tick callback is posted for, -1 if it is not posted
+    private long tickScheduledAt = -1;
+    private final Runnable tickRunnable = new Runnable() {
+        @Override
+        public void run() {
+            tickScheduledAt = -1;
+            advance();
+        }
+    };
+
+    /**
+     * Creates timer that is driven manually, call {@link #advance()} after moving the clock forward.
+     *
+     * @param clock source of time
+     */
+    public EventTimer(@NonNull EventClock clock) {
+        this(clock, null);
+    }
+
+    /**
+     * Creates timer driven by the given scheduler, used by the default timer and by tests.
+     */
+    EventTimer(EventClock clock, TickScheduler tickScheduler) {
+        this.clock = clock;
+        this.tickScheduler = tickScheduler;
+        this.startTime = clock.uptimeMillis();
+    }
+
+    /**
+     * @return shared timer driven by the main looper
+     */
+    @MainThread
+    @NonNull
+    public static EventTimer getDefault() {
+        if (defaultTimer == null) {
+            defaultTimer = new EventTimer(EventClock.SYSTEM, new HandlerTickScheduler(new Handler(Looper.getMainLooper())));
+        }
+        return defaultTimer;
+    }
+
+    @NonNull
+    public EventClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Schedules task to run after given delay. If task is already scheduled it is moved to the new time.
+     */
+    @MainThread
+    public void schedule(@NonNull Task task, long delayMillis) {
+        if (task.scheduled) {
+            unlink(task);
+        }
+        long deadline = clock.uptimeMillis() + Math.max(0, delayMillis);
+        // round up so task never runs before its deadline
+        long tick = Math.max(processedTick + 1, (deadline - startTime + TICK_MS - 1) / TICK_MS);
+        task.deadlineTick = tick;
+        task.scheduled = true;
+        int bucket = (int) (tick & WHEEL_MASK);
+        task.next = wheel[bucket];
+        if (task.next != null) {
+            task.next.previous = task;
+        }
+        task.previous = null;
+        wheel[bucket] = task;
+        pendingCount++;
+        if (tickScheduledAt < 0 || timeOf(tick) < tickScheduledAt) {
+            scheduleTick(tick);
+        }
+    }
+
+    /**
+     * Cancels task if it is scheduled.
+     */
+    @MainThread
+    public void cancel(@NonNull Task task) {
+        if (task.scheduled) {
+            unlink(task);
+            if (pendingCount == 0) {
+                cancelTick();
+            }
+        }
+    }
+
+    /**
+     * Runs every task whose deadline has passed according to the clock.
+     */
+    @MainThread
+    public void advance() {
+        long targetTick = (clock.uptimeMillis() - startTime) / TICK_MS;
+        // no need to walk the same bucket twice when timer was not advanced for a whole wheel turn
+        long lastTick = Math.min(targetTick, processedTick + WHEEL_SIZE);
+        for (long tick = processedTick + 1; tick <= lastTick && pendingCount > 0; tick++) {
+            // tasks rescheduled while running are always placed after the tick being processed
+            processedTick = tick;
+            int bucket = (int) (tick & WHEEL_MASK);
+            Task task = wheel[bucket];
+            while (task != null) {
+                if (task.deadlineTick <= targetTick) {
+                    unlink(task);
+                    task.run();
+                    // task could have cancelled or rescheduled other tasks from this bucket
+                    task = wheel[bucket];
+                } else {
+                    task = task.next;
+                }
+            }
+        }
+        processedTick = Math.max(processedTick, targetTick);
+        if (pendingCount == 0) {
+            cancelTick();
+        } else {
+            long earliest = earliestTick();
+            if (timeOf(earliest) != tickScheduledAt) {
+                scheduleTick(earliest);
+            }
+        }
+    }
+
+    /**
+     * @return deadline tick of the task that is due first
+     */
+    private long earliestTick() {
+        // a bucket holds tasks of different wheel turns, only a task due in the visited tick counts
+        for (long tick = processedTick + 1; tick <= processedTick + WHEEL_SIZE; tick++) {
+            for (Task task = wheel[(int) (tick & WHEEL_MASK)]; task != null; task = task.next) {
+                if (task.deadlineTick == tick) {
+                    return tick;
+                }
+            }
+        }
+        // every pending task is more than a wheel turn away
+        long earliest = Long.MAX_VALUE;
+        for (Task head : wheel) {
+            for (Task task = head; task != null; task = task.next) {
+                earliest = Math.min(earliest, task.deadlineTick);
+            }
+        }
+        return earliest;
+    }
+
+    private long timeOf(long tick) {
+        return startTime + tick * TICK_MS;
+    }
+
+    private void unlink(Task task) {
+        if (task.previous != null) {
+            task.previous.next = task.next;
+        } else {
+            wheel[(int) (task.deadlineTick & WHEEL_MASK)] = task.next;
+        }
+        if (task.next != null) {
+            task.next.previous = task.previous;
+        }
+        task.next = null;
+        task.previous = null;
+        task.scheduled = false;
+        pendingCount--;
+    }
+
+    private void scheduleTick(long tick) {
+        if (tickScheduler == null) {
+            return;
+        }
+        if (tickScheduledAt >= 0) {
+            tickScheduler.cancel(tickRunnable);
+        }
+        tickScheduledAt = timeOf(tick);
+        tickScheduler.postAt(tickRunnable, tickScheduledAt);
+    }
+
+    private void cancelTick() {
+        if (tickScheduler != null && tickScheduledAt >= 0) {
+            tickScheduler.cancel(tickRunnable);
+            tickScheduledAt = -1;
+        }
+    }
+
+    /**
+     * Posts the callback that advances the timer, time base is the one of {@link EventClock} the timer uses.
+     */
+    interface TickScheduler {
+
+        void postAt(Runnable tick, long uptimeMillis);
+
+        void cancel(Runnable tick);
+    }
+
+    private static final class HandlerTickScheduler implements TickScheduler {
+        private final Handler handler;
+
+        HandlerTickScheduler(Handler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void postAt(Runnable tick, long uptimeMillis) {
+            handler.postAtTime(tick, uptimeMillis);
+        }
+
+        @Override
+        public void cancel(Runnable tick) {
+            handler.removeCallbacks(tick);
+        }
+    }
+
+    /**
+     * Reusable timer task, one instance can be scheduled any number of times.
+     */
+    public abstract static class Task {
+        private Task next;
+        private Task previous;
+        private long deadlineTick;
+        private boolean scheduled;
+
+        public boolean isScheduled() {
+            return scheduled;
+        }
+
+        @MainThread
+        public abstract void run();
+    }
+}
@@ -0,0 +1,462 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.arch.core.util.Function;
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.core.PooledEvent;
+
+/**
+ * Operators that create new {@link EventLiveData} from an existing one.
+ * <p>
+ * Returned EventLiveData observes the source only while it has active observers and keeps one-shot
+ * semantics: an event emitted by an operator is not replayed to observers that subscribe later.
+ * <p>
+ * Timed operators share one {@link EventTimer}, by default {@link EventTimer#getDefault()} driven by the
+ * main looper, so rate limiting does not allocate a Handler or a Runnable per event. Operators that
+ * hold an event until later retain it if it is a {@link PooledEvent}.
+ * <p>
+ * {@link #map(EventLiveData, Function)}, {@link #filter(EventLiveData, EventPredicate)},
+ * {@link #distinctUntilChanged(EventLiveData)} and {@link #mapNotNull(EventLiveData, Function)} fuse:
+ * applied to the result of one of them they do not observe it, they observe its source and run all
+ * stages in one observer. A chain of such operators costs one dispatch of the source no matter how long it is.
+ */
+public final class EventTransformations {
+
+    private EventTransformations() {
+    }
+
+    /**
+     * Emits the first event and then ignores source events until windowMillis pass.
+     * Use for button clicks that should not be handled twice.
+     *
+     * @param source       source of events
+     * @param windowMillis time after emitted event in which other events are ignored
+     */
+    @MainThread
+    @NonNull
+    public static <T> EventLiveData<T> throttleFirst(@NonNull EventLiveData<T> source, long windowMillis) {
+        return throttleFirst(source, windowMillis, EventTimer.getDefault());
+    }
+
+    /**
+     * Same as {@link #throttleFirst(EventLiveData, long)} with time taken from given timer's clock.
+     */
+    @MainThread
+    @NonNull
+    public static <T> EventLiveData<T> throttleFirst(@NonNull EventLiveData<T> source, long windowMillis, @NonNull EventTimer timer) {
+        return new ThrottleFirstEventLiveData<>(source, windowMillis, timer.getClock());
+    }
+
+    /**
+     * Emits the latest event only after source did not emit anything for timeoutMillis.
+     * Use for search queries typed by the user.
+     *
+     * @param source        source of events
+     * @param timeoutMillis quiet time after which the latest event is emitted
+     */
+    @MainThread
+    @NonNull
+    public static <T> EventLiveData<T> debounce(@NonNull EventLiveData<T> source, long timeoutMillis) {
+        return debounce(source, timeoutMillis, EventTimer.getDefault());
+    }
+
+    /**
+     * Same as {@link #debounce(EventLiveData, long)} scheduled on the given timer.
+     */
+    @MainThread
+    @NonNull
+    public static <T> EventLiveData<T> debounce(@NonNull EventLiveData<T> source, long timeoutMillis, @NonNull EventTimer timer) {
+        return new DebounceEventLiveData<>(source, timeoutMillis, timer);
+    }
+
+    /**
+     * Emits the latest source event once per periodMillis, periods without events emit nothing.
+     *
+     * @param source       source of events
+     * @param periodMillis sampling period
+     */
+    @MainThread
+    @NonNull
+    public static <T> EventLiveData<T> sample(@NonNull EventLiveData<T> source, long periodMillis) {
+        return sample(source, periodMillis, EventTimer.getDefault());
+    }
+
+    /**
+     * Same as {@link #sample(EventLiveData, long)} scheduled on the given timer.
+     */
+    @MainThread
+    @NonNull
+    public static <T> EventLiveData<T> sample(@NonNull EventLiveData<T> source, long periodMillis, @NonNull EventTimer timer) {
+        return new SampleEventLiveData<>(source, periodMillis, timer);
+    }
+
+    /**
+     * Emits every source event converted by the function.
+     *
+     * @param source   source of events
+     * @param function applied to every event on the main thread
+     */
+    @MainThread
+    @NonNull
+    public static <X, Y> EventLiveData<Y> map(@NonNull EventLiveData<X> source, @NonNull final Function<? super X, ? extends Y> function) {
+        return fuse(source, new Stage() {
+            @Override
+            @SuppressWarnings("unchecked")
+            Object apply(Object event) {
+                return function.apply((X) event);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #map(EventLiveData, Function)} but events the function converts to null are dropped.
+     *
+     * @param source   source of events
+     * @param function applied to every event on the main thread, returns null for events to drop
+     */
+    @MainThread
+    @NonNull
+    public static <X, Y> EventLiveData<Y> mapNotNull(@NonNull EventLiveData<X> source, @NonNull final Function<? super X, ? extends Y> function) {
+        return fuse(source, new Stage() {
+            @Override
+            @SuppressWarnings("unchecked")
+            Object apply(Object event) {
+                Y mapped = function.apply((X) event);
+                return mapped != null ? mapped : DROPPED;
+            }
+        });
+    }
+
+    /**
+     * Emits only source events accepted by the predicate.
+     *
+     * @param source    source of events
+     * @param predicate called for every event on the main thread
+     */
+    @MainThread
+    @NonNull
+    public static <T> EventLiveData<T> filter(@NonNull EventLiveData<T> source, @NonNull final EventPredicate<? super T> predicate) {
+        return fuse(source, new Stage() {
+            @Override
+            @SuppressWarnings("unchecked")
+            Object apply(Object event) {
+                return predicate.test((T) event) ? event : DROPPED;
+            }
+        });
+    }
+
+    /**
+     * Drops events equal to the previous source event, compared with {@link Object#equals(Object)}.
+     * Comparison starts over every time the operator is attached to its source again.
+     *
+     * @param source source of events
+     */
+    @MainThread
+    @NonNull
+    public static <T> EventLiveData<T> distinctUntilChanged(@NonNull EventLiveData<T> source) {
+        return fuse(source, new DistinctStage());
+    }
+
+    /**
+     * Emits events of all sources in the order they were sent. Sources are observed only while the
+     * returned EventLiveData has active observers.
+     *
+     * @param sources sources of events
+     */
+    @SafeVarargs
+    @MainThread
+    @NonNull
+    public static <T> EventLiveData<T> merge(@NonNull EventLiveData<? extends T>... sources) {
+        final MediatorEventLiveData<T> merged = sources.length > 0
+                ? new MediatorEventLiveData<T>(sources[0].getMainThreadScheduler())
+                : new MediatorEventLiveData<T>();
+        Observer<T> forward = new Observer<T>() {
+            @Override
+            public void onChanged(T t) {
+                merged.setValue(t);
+            }
+        };
+        for (EventLiveData<? extends T> source : sources) {
+            merged.addSource(source, forward);
+        }
+        return merged;
+    }
+
+    /**
+     * Once both sources emitted, emits the combination of their latest events every time one of them emits.
+     * Latest events are forgotten when the returned EventLiveData becomes inactive, after it is active again
+     * both sources have to emit before anything is combined.
+     *
+     * @param a        first source of events
+     * @param b        second source of events
+     * @param combiner called on the main thread with latest events of both sources
+     */
+    @MainThread
+    @NonNull
+    public static <A, B, R> EventLiveData<R> combineLatest(@NonNull EventLiveData<A> a, @NonNull EventLiveData<B> b, @NonNull EventCombiner<? super A, ? super B, ? extends R> combiner) {
+        return new CombineLatestEventLiveData<>(a, b, combiner);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <X, Y> EventLiveData<Y> fuse(EventLiveData<X> source, Stage stage) {
+        if (source instanceof FusedEventLiveData) {
+            FusedEventLiveData<Object, X> upstream = (FusedEventLiveData<Object, X>) source;
+            Stage[] stages = new Stage[upstream.stages.length + 1];
+            for (int i = 0; i < upstream.stages.length; i++) {
+                // stateful stages get own state, upstream keeps working if it is observed too
+                stages[i] = upstream.stages[i].copy();
+            }
+            stages[upstream.stages.length] = stage;
+            return new FusedEventLiveData<>(upstream.source, stages);
+        }
+        return new FusedEventLiveData<>(source, new Stage[]{stage});
+    }
+
+    /**
+     * Marks an event dropped by a stage.
+     */
+    private static final Object DROPPED = new Object();
+
+    /**
+     * One step of a fused chain, returns converted event or {@link #DROPPED}.
+     */
+    private abstract static class Stage {
+        abstract Object apply(Object event);
+
+        /**
+         * @return stage for another chain, stateless stages return themselves
+         */
+        Stage copy() {
+            return this;
+        }
+
+        void reset() {
+        }
+    }
+
+    private static final class DistinctStage extends Stage {
+        private Object last;
+        private boolean hasLast;
+
+        @Override
+        Object apply(Object event) {
+            if (hasLast && (last == event || (last != null && last.equals(event)))) {
+                return DROPPED;
+            }
+            PooledEvent.retainIfPooled(event);
+            PooledEvent.releaseIfPooled(last);
+            last = event;
+            hasLast = true;
+            return event;
+        }
+
+        @Override
+        Stage copy() {
+            return new DistinctStage();
+        }
+
+        @Override
+        void reset() {
+            PooledEvent.releaseIfPooled(last);
+            last = null;
+            hasLast = false;
+        }
+    }
+
+    /**
+     * Runs all fused stages inside the dispatch loop of the root source.
+     */
+    private static final class FusedEventLiveData<S, T> extends OperatorEventLiveData<S, T> {
+        final Stage[] stages;
+
+        FusedEventLiveData(EventLiveData<S> source, Stage[] stages) {
+            super(source);
+            this.stages = stages;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onChanged(S s) {
+            Object event = s;
+            for (Stage stage : stages) {
+                event = stage.apply(event);
+                if (event == DROPPED) {
+                    return;
+                }
+            }
+            emit((T) event);
+        }
+
+        @Override
+        void onDetachedFromSource() {
+            for (Stage stage : stages) {
+                stage.reset();
+            }
+        }
+    }
+
+    private static final class CombineLatestEventLiveData<A, B, R> extends MediatorEventLiveData<R> {
+        private final EventCombiner<? super A, ? super B, ? extends R> combiner;
+        private A latestA;
+        private B latestB;
+        private boolean hasA;
+        private boolean hasB;
+
+        CombineLatestEventLiveData(EventLiveData<A> a, EventLiveData<B> b, EventCombiner<? super A, ? super B, ? extends R> combiner) {
+            super(a.getMainThreadScheduler());
+            this.combiner = combiner;
+            addSource(a, new Observer<A>() {
+                @Override
+                public void onChanged(A event) {
+                    PooledEvent.retainIfPooled(event);
+                    PooledEvent.releaseIfPooled(latestA);
+                    latestA = event;
+                    hasA = true;
+                    combine();
+                }
+            });
+            addSource(b, new Observer<B>() {
+                @Override
+                public void onChanged(B event) {
+                    PooledEvent.retainIfPooled(event);
+                    PooledEvent.releaseIfPooled(latestB);
+                    latestB = event;
+                    hasB = true;
+                    combine();
+                }
+            });
+        }
+
+        private void combine() {
+            if (hasA && hasB) {
+                setValue(combiner.combine(latestA, latestB));
+            }
+        }
+
+        @Override
+        protected void onInactive() {
+            super.onInactive();
+            PooledEvent.releaseIfPooled(latestA);
+            PooledEvent.releaseIfPooled(latestB);
+            latestA = null;
+            latestB = null;
+            hasA = false;
+            hasB = false;
+        }
+    }
+
+    private static final class ThrottleFirstEventLiveData<T> extends OperatorEventLiveData<T, T> {
+        private final long windowMillis;
+        private final EventClock clock;
+        private boolean emitted;
+        private long lastEmission;
+
+        ThrottleFirstEventLiveData(EventLiveData<T> source, long windowMillis, EventClock clock) {
+            super(source);
+            this.windowMillis = windowMillis;
+            this.clock = clock;
+        }
+
+        @Override
+        public void onChanged(T t) {
+            long now = clock.uptimeMillis();
+            if (emitted && now - lastEmission < windowMillis) {
+                return;
+            }
+            emitted = true;
+            lastEmission = now;
+            emit(t);
+        }
+    }
+
+    private static final class DebounceEventLiveData<T> extends OperatorEventLiveData<T, T> {
+        private final long timeoutMillis;
+        private final EventTimer timer;
+        private T latest;
+        private final EventTimer.Task emitTask = new EventTimer.Task() {
+            @Override
+            public void run() {
+                T value = latest;
+                latest = null;
+                try {
+                    emit(value);
+                } finally {
+                    PooledEvent.releaseIfPooled(value);
+                }
+            }
+        };
+
+        DebounceEventLiveData(EventLiveData<T> source, long timeoutMillis, EventTimer timer) {
+            super(source);
+            this.timeoutMillis = timeoutMillis;
+            this.timer = timer;
+        }
+
+        @Override
+        public void onChanged(T t) {
+            PooledEvent.retainIfPooled(t);
+            PooledEvent.releaseIfPooled(latest);
+            latest = t;
+            timer.schedule(emitTask, timeoutMillis);
+        }
+
+        @Override
+        void onDetachedFromSource() {
+            timer.cancel(emitTask);
+            PooledEvent.releaseIfPooled(latest);
+            latest = null;
+        }
+    }
+
+    private static final class SampleEventLiveData<T> extends OperatorEventLiveData<T, T> {
+        private final long periodMillis;
+        private final EventTimer timer;
+        private T latest;
+        private boolean hasLatest;
+        private final EventTimer.Task sampleTask = new EventTimer.Task() {
+            @Override
+            public void run() {
+                if (!hasLatest) {
+                    // period without events, timer stays idle until the next event
+                    return;
+                }
+                T value = latest;
+                latest = null;
+                hasLatest = false;
+                timer.schedule(this, periodMillis);
+                try {
+                    emit(value);
+                } finally {
+                    PooledEvent.releaseIfPooled(value);
+                }
+            }
+        };
+
+        SampleEventLiveData(EventLiveData<T> source, long periodMillis, EventTimer timer) {
+            super(source);
+            this.periodMillis = periodMillis;
+            this.timer = timer;
+        }
+
+        @Override
+        public void onChanged(T t) {
+            PooledEvent.retainIfPooled(t);
+            PooledEvent.releaseIfPooled(latest);
+            latest = t;
+            hasLatest = true;
+            if (!sampleTask.isScheduled()) {
+                timer.schedule(sampleTask, periodMillis);
+            }
+        }
+
+        @Override
+        void onDetachedFromSource() {
+            timer.cancel(sampleTask);
+            PooledEvent.releaseIfPooled(latest);
+            latest = null;
+            hasLatest = false;
+        }
+    }
+}
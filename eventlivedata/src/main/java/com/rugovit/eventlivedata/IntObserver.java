@@ -0,0 +1,14 @@
+package com.rugovit.eventlivedata;
+
+/**
+ * Observer of {@link IntEventLiveData}, receives events without boxing.
+ */
+public interface IntObserver {
+
+    /**
+     * Called when the event is set.
+     *
+     * @param value The new value
+     */
+    void onChanged(int value);
+}
@@ -0,0 +1,71 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+/**
+ * Counterpart of {@link EventLiveData} for {@code long} events (ids, timestamps, byte counts) that never boxes them.
+ * It is a parallel class, not an EventLiveData, so it can not be passed to {@link EventTransformations}.
+ * <p>
+ * Observers follow the same rules as {@link EventLiveData} observers: they receive only events set
+ * while their owner is at least in minimumStateForSendingEvent state, they never receive an event set
+ * before they became active, and they are removed on {@link Lifecycle.State#DESTROYED} or on removeObserverEvent.
+ * <p>
+ * {@link #postValue(long)} is lossless, posted values are kept in a bounded primitive queue and
+ * delivered in the order they were posted.
+ */
+public class LongEventLiveData extends PrimitiveEventLiveData<LongObserver> {
+
+    /**
+     * Creates LongEventLiveData with post queue of {@link #DEFAULT_POST_QUEUE_CAPACITY} that drops the oldest
+     * value when full.
+     */
+    public LongEventLiveData() {
+        this(DEFAULT_POST_QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * @param postQueueCapacity maximum number of posted values waiting for main thread, rounded up to the next power of two
+     * @param overflowPolicy    what to do with values posted while queue is full
+     */
+    public LongEventLiveData(int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        this(AndroidMainThreadScheduler.getInstance(), postQueueCapacity, overflowPolicy);
+    }
+
+    LongEventLiveData(MainThreadScheduler mainThreadScheduler, int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        super(mainThreadScheduler, postQueueCapacity, overflowPolicy);
+    }
+
+    /**
+     * Delivers the value to all active observers, must be called from the main thread.
+     *
+     * @param value The new value
+     */
+    @MainThread
+    protected void setValue(long value) {
+        dispatch(value);
+    }
+
+    /**
+     * Posts the value to the main thread without boxing it.
+     *
+     * @param value The new value
+     */
+    protected void postValue(long value) {
+        post(value);
+    }
+
+    @Override
+    void dispatchPosted(long value) {
+        setValue(value);
+    }
+
+    @Override
+    void onChanged(LongObserver observer, long value) {
+        observer.onChanged(value);
+    }
+}
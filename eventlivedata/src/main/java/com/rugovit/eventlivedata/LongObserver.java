@@ -0,0 +1,14 @@
+package com.rugovit.eventlivedata;
+
+/**
+ * Observer of {@link LongEventLiveData}, receives events without boxing.
+ */
+public interface LongObserver {
+
+    /**
+     * Called when the event is set.
+     *
+     * @param value The new value
+     */
+    void onChanged(long value);
+}
@@ -0,0 +1,129 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.CallSuper;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * {@link MutableEventLiveData} that observes other EventLiveData objects and reacts on their events.
+ * <p>
+ * Sources are observed only while this MediatorEventLiveData has active observers: every source gets
+ * one observer in {@link #onActiveEvent()} and loses it in {@link #onInactive()}, so sources nobody is
+ * watching stay detached. Events sent by a source while the mediator was inactive are not delivered
+ * later, same as for any other observer of an EventLiveData.
+ * <p>
+ * {@link EventTransformations#merge(EventLiveData[])} and
+ * {@link EventTransformations#combineLatest(EventLiveData, EventLiveData, EventCombiner)} are built on it.
+ *
+ * @param <T> type of emitted events
+ */
+public class MediatorEventLiveData<T> extends MutableEventLiveData<T> {
+
+    private final IdentityHashMap<EventLiveData<?>, Source<?>> sources = new IdentityHashMap<>();
+
+    public MediatorEventLiveData() {
+    }
+
+    MediatorEventLiveData(MainThreadScheduler mainThreadScheduler) {
+        super(mainThreadScheduler);
+    }
+
+    /**
+     * Starts listening to the given source, onChanged is called on the main thread for every event of
+     * the source sent while this MediatorEventLiveData is active.
+     *
+     * @param source    the EventLiveData to listen to
+     * @param onChanged the observer that will receive the events
+     * @throws IllegalArgumentException if the source was already added with a different observer
+     */
+    @MainThread
+    public <S> void addSource(@NonNull EventLiveData<S> source, @NonNull Observer<? super S> onChanged) {
+        registry.assertMainThread("addSource");
+        registry.assertNotNull(source, "source");
+        registry.assertNotNull(onChanged, "onChanged");
+        Source<?> existing = sources.get(source);
+        if (existing != null) {
+            if (existing.observer != onChanged) {
+                throw new IllegalArgumentException("This source was already added with the different observer");
+            }
+            return;
+        }
+        Source<S> added = new Source<>(source, onChanged);
+        sources.put(source, added);
+        if (hasActiveObservers()) {
+            added.plug();
+        }
+    }
+
+    /**
+     * Stops listening to the given source.
+     *
+     * @param source the EventLiveData to stop listening to
+     */
+    @MainThread
+    public void removeSource(@NonNull EventLiveData<?> source) {
+        registry.assertMainThread("removeSource");
+        Source<?> removed = sources.remove(source);
+        if (removed != null) {
+            removed.unplug();
+        }
+    }
+
+    @CallSuper
+    @Override
+    protected void onActiveEvent() {
+        // callbacks of a source being plugged or unplugged can add or remove sources
+        for (Source<?> source : new ArrayList<>(sources.values())) {
+            if (sources.get(source.source) == source) {
+                source.plug();
+            }
+        }
+    }
+
+    @CallSuper
+    @Override
+    protected void onInactive() {
+        for (Source<?> source : new ArrayList<>(sources.values())) {
+            source.unplug();
+        }
+    }
+
+    /**
+     * One observed source, holds the only observer the mediator registers on it.
+     */
+    private static final class Source<S> implements Observer<S> {
+        final EventLiveData<S> source;
+        final Observer<? super S> observer;
+        boolean plugged;
+
+        Source(EventLiveData<S> source, Observer<? super S> observer) {
+            this.source = source;
+            this.observer = observer;
+        }
+
+        void plug() {
+            if (!plugged) {
+                plugged = true;
+                source.observeForever(this);
+            }
+        }
+
+        void unplug() {
+            if (plugged) {
+                plugged = false;
+                source.removeObserver(this);
+            }
+        }
+
+        @Override
+        public void onChanged(S s) {
+            observer.onChanged(s);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.NonNull;
+
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+/**
+ * {@link BooleanEventLiveData} which publicly exposes {@link #setValue(boolean)} and {@link #postValue(boolean)}.
+ */
+public class MutableBooleanEventLiveData extends BooleanEventLiveData {
+
+    public MutableBooleanEventLiveData() {
+    }
+
+    /**
+     * @param postQueueCapacity maximum number of posted values waiting for main thread, rounded up to the next power of two
+     * @param overflowPolicy    what to do with values posted while queue is full
+     */
+    public MutableBooleanEventLiveData(int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        super(postQueueCapacity, overflowPolicy);
+    }
+
+    MutableBooleanEventLiveData(MainThreadScheduler mainThreadScheduler, int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        super(mainThreadScheduler, postQueueCapacity, overflowPolicy);
+    }
+
+    @Override
+    public void setValue(boolean value) {
+        super.setValue(value);
+    }
+
+    @Override
+    public void postValue(boolean value) {
+        super.postValue(value);
+    }
+}
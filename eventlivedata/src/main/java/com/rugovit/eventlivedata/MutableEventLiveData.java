@@ -1,14 +1,320 @@
 package com.rugovit.eventlivedata;
 
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.arch.core.util.Function;
+import androidx.lifecycle.LiveData;
+
+import com.rugovit.eventlivedata.core.EventPostQueue;
+import com.rugovit.eventlivedata.core.KeyCoalescingPostQueue;
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 public class MutableEventLiveData<T> extends EventLiveData<T> {
 
+    private static final Object NULL_EVENT = new Object();
+    private static final Object NO_EVENT = new Object();
+
+    private final EventPostQueue<Object> postQueue;
+    private final KeyCoalescingPostQueue<Object> coalescingQueue;
+    private final Function<? super T, ?> coalescingKeyFunction;
+    // coalesced posts already reported to the monitor, main thread only
+    private long reportedCoalescedCount;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (coalescingQueue != null) {
+                drainCoalescingQueue();
+            } else if (postQueue != null) {
+                drainPostQueue();
+            } else {
+                drainPendingPost();
+            }
+        }
+    };
+    private final MainThreadScheduler mainThreadScheduler;
+    // latest event posted in LiveData mode and not yet set, NO_EVENT if none is pending
+    private final AtomicReference<Object> pendingPost = new AtomicReference<>(NO_EVENT);
+    // used only while a monitor is set, posts replaced in pendingPost before main thread took them
+    private final AtomicInteger mergedPostCount = new AtomicInteger();
+    private volatile EventDeduplicator<T> deduplicator;
+    // true while a post queue is drained, posted events already passed the dedup stage
+    private boolean drainingPosted;
+
+    /**
+     * Creates MutableEventLiveData that posts events same as regular {@link LiveData}: if multiple
+     * {@link #postValue(Object)} calls happen before main thread executes them, only the last event
+     * will be dispatched.
+     */
+    public MutableEventLiveData() {
+        this(AndroidMainThreadScheduler.getInstance());
+    }
+
+    MutableEventLiveData(MainThreadScheduler mainThreadScheduler) {
+        super(mainThreadScheduler);
+        this.postQueue = null;
+        this.coalescingQueue = null;
+        this.coalescingKeyFunction = null;
+        this.mainThreadScheduler = mainThreadScheduler;
+    }
+
+    /**
+     * Creates MutableEventLiveData with lossless {@link #postValue(Object)}. Every posted event is
+     * stored in a bounded lock-free queue and all pending events are dispatched to observers in
+     * the order they were posted, during single main thread message.
+     *
+     * @param postQueueCapacity maximum number of posted events waiting for main thread, rounded up to the next power of two
+     * @param overflowPolicy    what to do with events posted while queue is full
+     */
+    public MutableEventLiveData(int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        this(AndroidMainThreadScheduler.getInstance(), postQueueCapacity, overflowPolicy);
+    }
+
+    MutableEventLiveData(MainThreadScheduler mainThreadScheduler, int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        super(mainThreadScheduler);
+        this.postQueue = new EventPostQueue<>(postQueueCapacity, overflowPolicy);
+        this.coalescingQueue = null;
+        this.coalescingKeyFunction = null;
+        this.mainThreadScheduler = mainThreadScheduler;
+    }
+
+    /**
+     * Creates MutableEventLiveData with key-coalescing {@link #postValue(Object)}. Only the latest posted
+     * event of every key is kept until the main thread takes it, so a burst of posts for many entities
+     * delivers the latest event of each entity instead of the single latest event. Pending keys are
+     * drained in one main thread message, each key at most once, in the order the key was first posted.
+     * Main thread work is bounded by the number of distinct keys, not by the number of posts.
+     *
+     * @param keyFunction returns key of the event, called on the posting thread
+     */
+    public MutableEventLiveData(@NonNull Function<? super T, ?> keyFunction) {
+        this(AndroidMainThreadScheduler.getInstance(), keyFunction);
+    }
+
+    MutableEventLiveData(MainThreadScheduler mainThreadScheduler, @NonNull Function<? super T, ?> keyFunction) {
+        super(mainThreadScheduler);
+        if (keyFunction == null) {
+            throw new IllegalArgumentException("Parameter specified as non-null is null: keyFunction");
+        }
+        this.postQueue = null;
+        this.coalescingQueue = new KeyCoalescingPostQueue<>();
+        this.coalescingKeyFunction = keyFunction;
+        this.mainThreadScheduler = mainThreadScheduler;
+    }
+
+    /**
+     * Posts a task to a main thread to set the given value.
+     * <p>
+     * In lossless mode, created with {@link #MutableEventLiveData(int, OverflowPolicy)}, no event
+     * is merged with the next one, events are dropped only if the post queue overflows. In key-coalescing
+     * mode, created with {@link #MutableEventLiveData(Function)}, event replaces a pending event with the same key.
+     *
+     * @param value The new value
+     */
     @Override
     public void postValue(T value) {
-        super.postValue(value);
+        EventDeduplicator<T> deduplicator = this.deduplicator;
+        if (deduplicator != null && !deduplicator.accept(value)) {
+            return;
+        }
+        boolean monitored = getMonitor() != null;
+        if (coalescingQueue != null) {
+            Object event = value == null ? NULL_EVENT : value;
+            coalescingQueue.offer(coalescingKeyFunction.apply(value), monitored ? new PostedEvent(event, System.nanoTime()) : event);
+            if (drainScheduled.compareAndSet(false, true)) {
+                mainThreadScheduler.post(drainRunnable);
+            }
+            return;
+        }
+        Object event = value == null ? NULL_EVENT : value;
+        if (postQueue == null) {
+            // same single slot as LiveData.postValue, kept here so a posted event is told apart from setValue
+            Object previous = pendingPost.getAndSet(monitored ? new PostedEvent(event, System.nanoTime()) : event);
+            if (previous == NO_EVENT) {
+                mainThreadScheduler.post(drainRunnable);
+            } else if (monitored) {
+                mergedPostCount.incrementAndGet();
+            }
+            return;
+        }
+        postQueue.offer(monitored ? new PostedEvent(event, System.nanoTime()) : event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            mainThreadScheduler.post(drainRunnable);
+        }
     }
 
     @Override
     public void setValue(T value) {
+        EventDeduplicator<T> deduplicator = this.deduplicator;
+        // posted events already passed the dedup stage on the posting thread
+        if (deduplicator != null && !drainingPosted && !deduplicator.accept(value)) {
+            return;
+        }
         super.setValue(value);
     }
+
+    /**
+     * Enables dedup stage that drops an event equal to the last delivered one, if that one was set or
+     * posted less than windowMillis ago. Duplicates passed to {@link #postValue(Object)} are dropped on the
+     * calling thread, so they never cost a main thread message.
+     *
+     * @param windowMillis time after the last accepted event in which equal events are dropped
+     */
+    @MainThread
+    public void setDeduplication(long windowMillis) {
+        setDeduplication(null, windowMillis, EventClock.SYSTEM);
+    }
+
+    /**
+     * Same as {@link #setDeduplication(long)} with events compared by keys the function returns. Function
+     * is called on the thread that sets or posts the event.
+     *
+     * @param keyFunction  returns key of the event, events with equal keys are duplicates
+     * @param windowMillis time after the last accepted event in which events with equal key are dropped
+     */
+    @MainThread
+    public void setDeduplication(@NonNull Function<? super T, ?> keyFunction, long windowMillis) {
+        registry.assertNotNull(keyFunction, "keyFunction");
+        setDeduplication(keyFunction, windowMillis, EventClock.SYSTEM);
+    }
+
+    /**
+     * Same as {@link #setDeduplication(Function, long)} with time taken from given clock.
+     *
+     * @param keyFunction  returns key of the event, null to compare events with {@link Object#equals(Object)}
+     * @param windowMillis time after the last accepted event in which events with equal key are dropped
+     * @param clock        source of time
+     */
+    @MainThread
+    public void setDeduplication(Function<? super T, ?> keyFunction, long windowMillis, @NonNull EventClock clock) {
+        registry.assertMainThread("setDeduplication");
+        registry.assertNotNull(clock, "clock");
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Dedup window must be positive, was " + windowMillis);
+        }
+        deduplicator = new EventDeduplicator<>(keyFunction, windowMillis, clock);
+    }
+
+    /**
+     * Disables dedup stage set with {@link #setDeduplication(long)}.
+     */
+    @MainThread
+    public void clearDeduplication() {
+        registry.assertMainThread("clearDeduplication");
+        deduplicator = null;
+    }
+
+    /**
+     * @return number of events dropped by the dedup stage since it was set
+     */
+    public long getSuppressedDuplicateCount() {
+        EventDeduplicator<T> deduplicator = this.deduplicator;
+        return deduplicator == null ? 0 : deduplicator.getSuppressedCount();
+    }
+
+    /**
+     * @return true if {@link #postValue(Object)} is queuing every event instead of keeping only the last one
+     */
+    public boolean isLosslessPostEnabled() {
+        return postQueue != null;
+    }
+
+    /**
+     * @return number of posted events dropped by the {@link OverflowPolicy} since creation, always 0 if lossless posting is not enabled
+     */
+    public long getDroppedEventCount() {
+        return postQueue == null ? 0 : postQueue.getDroppedCount();
+    }
+
+    /**
+     * @return number of posted events replaced by a later event of the same key since creation, always 0
+     * if key-coalescing posting is not enabled
+     */
+    public long getCoalescedEventCount() {
+        return coalescingQueue == null ? 0 : coalescingQueue.getCoalescedCount();
+    }
+
+    private void drainPendingPost() {
+        Object event = pendingPost.getAndSet(NO_EVENT);
+        if (event == NO_EVENT) {
+            return;
+        }
+        int merged = mergedPostCount.getAndSet(0);
+        EventLiveDataMonitor monitor = getMonitor();
+        if (merged > 0 && monitor != null) {
+            monitor.onPostCoalesced(this, merged);
+        }
+        setPosted(event);
+    }
+
+    private void drainPostQueue() {
+        drainScheduled.set(false);
+        // events posted while draining are left for the next message so main thread is never starved
+        int budget = postQueue.capacity();
+        Object event;
+        while (budget-- > 0 && (event = postQueue.poll()) != null) {
+            setPosted(event);
+        }
+        if (!postQueue.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            mainThreadScheduler.post(drainRunnable);
+        }
+    }
+
+    private void drainCoalescingQueue() {
+        drainScheduled.set(false);
+        EventLiveDataMonitor monitor = getMonitor();
+        if (monitor != null) {
+            long coalesced = coalescingQueue.getCoalescedCount();
+            if (coalesced > reportedCoalescedCount) {
+                monitor.onPostCoalesced(this, (int) Math.min(Integer.MAX_VALUE, coalesced - reportedCoalescedCount));
+            }
+            reportedCoalescedCount = coalesced;
+        }
+        // keys posted again while draining are queued behind this budget and wait for the next message
+        int budget = coalescingQueue.size();
+        Object event;
+        while (budget-- > 0 && (event = coalescingQueue.poll()) != null) {
+            setPosted(event);
+        }
+        if (!coalescingQueue.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            mainThreadScheduler.post(drainRunnable);
+        }
+    }
+
+    /**
+     * Sets an event taken from a post queue or the pending post slot.
+     */
+    @SuppressWarnings("unchecked")
+    private void setPosted(Object event) {
+        if (event instanceof PostedEvent) {
+            mPendingPostNanos = ((PostedEvent) event).postNanos;
+            event = ((PostedEvent) event).event;
+        }
+        drainingPosted = true;
+        try {
+            setValue(event == NULL_EVENT ? null : (T) event);
+        } finally {
+            drainingPosted = false;
+            // value set without active observers never reaches the internal observer that resets it
+            mPendingPostNanos = -1;
+        }
+    }
+
+    /**
+     * Queued event with its post time, used only while a monitor is set.
+     */
+    private static final class PostedEvent {
+        final Object event;
+        final long postNanos;
+
+        PostedEvent(Object event, long postNanos) {
+            this.event = event;
+            this.postNanos = postNanos;
+        }
+    }
 }
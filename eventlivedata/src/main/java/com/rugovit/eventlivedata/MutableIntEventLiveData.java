@@ -0,0 +1,37 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.NonNull;
+
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+/**
+ * {@link IntEventLiveData} which publicly exposes {@link #setValue(int)} and {@link #postValue(int)}.
+ */
+public class MutableIntEventLiveData extends IntEventLiveData {
+
+    public MutableIntEventLiveData() {
+    }
+
+    /**
+     * @param postQueueCapacity maximum number of posted values waiting for main thread, rounded up to the next power of two
+     * @param overflowPolicy    what to do with values posted while queue is full
+     */
+    public MutableIntEventLiveData(int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        super(postQueueCapacity, overflowPolicy);
+    }
+
+    MutableIntEventLiveData(MainThreadScheduler mainThreadScheduler, int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        super(mainThreadScheduler, postQueueCapacity, overflowPolicy);
+    }
+
+    @Override
+    public void setValue(int value) {
+        super.setValue(value);
+    }
+
+    @Override
+    public void postValue(int value) {
+        super.postValue(value);
+    }
+}
@@ -0,0 +1,37 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.NonNull;
+
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+/**
+ * {@link LongEventLiveData} which publicly exposes {@link #setValue(long)} and {@link #postValue(long)}.
+ */
+public class MutableLongEventLiveData extends LongEventLiveData {
+
+    public MutableLongEventLiveData() {
+    }
+
+    /**
+     * @param postQueueCapacity maximum number of posted values waiting for main thread, rounded up to the next power of two
+     * @param overflowPolicy    what to do with values posted while queue is full
+     */
+    public MutableLongEventLiveData(int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        super(postQueueCapacity, overflowPolicy);
+    }
+
+    MutableLongEventLiveData(MainThreadScheduler mainThreadScheduler, int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        super(mainThreadScheduler, postQueueCapacity, overflowPolicy);
+    }
+
+    @Override
+    public void setValue(long value) {
+        super.setValue(value);
+    }
+
+    @Override
+    public void postValue(long value) {
+        super.postValue(value);
+    }
+}
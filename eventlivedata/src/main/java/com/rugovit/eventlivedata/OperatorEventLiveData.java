@@ -0,0 +1,43 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Observer;
+
+/**
+ * Base for operators from {@link EventTransformations}. Operator is attached to its source only while it
+ * has active observers, so a chain nobody is watching costs nothing on the source side.
+ *
+ * @param <S> type of source events
+ * @param <T> type of emitted events
+ */
+abstract class OperatorEventLiveData<S, T> extends EventLiveData<T> implements Observer<S> {
+
+    @NonNull
+    final EventLiveData<S> source;
+
+    OperatorEventLiveData(@NonNull EventLiveData<S> source) {
+        super(source.getMainThreadScheduler());
+        this.source = source;
+    }
+
+    @Override
+    protected void onActiveEvent() {
+        source.observeForever(this);
+    }
+
+    @Override
+    protected void onInactive() {
+        source.removeObserver(this);
+        onDetachedFromSource();
+    }
+
+    /**
+     * Called after operator stopped observing its source, pending state should be cleared.
+     */
+    void onDetachedFromSource() {
+    }
+
+    final void emit(T value) {
+        setValue(value);
+    }
+}
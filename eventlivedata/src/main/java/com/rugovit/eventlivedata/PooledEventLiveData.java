@@ -0,0 +1,130 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import com.rugovit.eventlivedata.core.EventPool;
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+import com.rugovit.eventlivedata.core.PooledEvent;
+
+/**
+ * {@link MutableEventLiveData} that reuses event payloads for high frequency events (touch deltas,
+ * download progress) so steady event flow does not allocate.
+ * <p>
+ * Payload is obtained with {@link #obtain()}, filled and passed to {@link #setValue(PooledEvent)} or
+ * {@link #postValue(PooledEvent)}, which take over its reference. After the event was delivered to all
+ * active observers the payload is returned to the pool. Observer that needs the payload after its
+ * callback returns has to call {@link PooledEvent#retain()} and later {@link PooledEvent#release()}.
+ * Executor and batched observers retain payloads on their own.
+ * <p>
+ * Posted payloads that are merged or dropped before reaching the main thread are not returned to
+ * the pool, they are left to the garbage collector and the pool creates new ones. Released payload is
+ * not kept as the LiveData value, {@link #getValue()} returns null once the event was delivered.
+ *
+ * @param <T> type of payloads
+ */
+public class PooledEventLiveData<T extends PooledEvent> extends MutableEventLiveData<T> {
+
+    private final EventPool<T> pool;
+    private T nestedValue;
+
+    /**
+     * Creates PooledEventLiveData that posts events same as {@link MutableEventLiveData#MutableEventLiveData()}.
+     *
+     * @param poolCapacity maximum number of free payloads kept for reuse, rounded up to the next power of two
+     * @param factory      creates payloads when pool is empty
+     */
+    public PooledEventLiveData(int poolCapacity, @NonNull EventPool.Factory<? extends T> factory) {
+        this(AndroidMainThreadScheduler.getInstance(), poolCapacity, factory);
+    }
+
+    PooledEventLiveData(MainThreadScheduler mainThreadScheduler, int poolCapacity, @NonNull EventPool.Factory<? extends T> factory) {
+        super(mainThreadScheduler);
+        this.pool = new EventPool<>(poolCapacity, factory);
+    }
+
+    /**
+     * Creates PooledEventLiveData with lossless postValue, see {@link MutableEventLiveData#MutableEventLiveData(int, OverflowPolicy)}.
+     *
+     * @param poolCapacity      maximum number of free payloads kept for reuse, rounded up to the next power of two
+     * @param factory           creates payloads when pool is empty
+     * @param postQueueCapacity maximum number of posted events waiting for main thread, rounded up to the next power of two
+     * @param overflowPolicy    what to do with events posted while queue is full
+     */
+    public PooledEventLiveData(int poolCapacity, @NonNull EventPool.Factory<? extends T> factory, int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        super(postQueueCapacity, overflowPolicy);
+        this.pool = new EventPool<>(poolCapacity, factory);
+    }
+
+    /**
+     * Can be called from any thread.
+     *
+     * @return payload to fill and pass to {@link #setValue(PooledEvent)} or {@link #postValue(PooledEvent)}
+     */
+    @NonNull
+    public T obtain() {
+        return pool.obtain();
+    }
+
+    /**
+     * Delivers the payload to all active observers and then releases the reference passed in. Payload set
+     * from an observer is delivered and released after the running dispatch returned.
+     *
+     * @param value payload obtained with {@link #obtain()}
+     */
+    @MainThread
+    @Override
+    public void setValue(T value) {
+        if (isDispatching()) {
+            setNestedValue(value);
+            return;
+        }
+        try {
+            super.setValue(value);
+        } finally {
+            // LiveData would hand the payload to the next observer after the pool reused it
+            clearStoredValue();
+            if (value != null) {
+                value.release();
+            }
+        }
+    }
+
+    /**
+     * Value set from an observer is delivered by LiveData after the running dispatch returned, so the
+     * payload is released by {@link #onEventDispatched(PooledEvent)} instead of here.
+     */
+    private void setNestedValue(T value) {
+        T replaced = nestedValue;
+        nestedValue = value;
+        try {
+            super.setValue(value);
+        } finally {
+            // dropped by dedup, LiveData won't deliver it
+            if (value != null && value == nestedValue && getValue() != value) {
+                nestedValue = null;
+                value.release();
+            }
+            // LiveData delivers only the latest of values set during one dispatch
+            if (replaced != null && replaced != nestedValue) {
+                replaced.release();
+            }
+        }
+    }
+
+    @Override
+    void onEventDispatched(T t) {
+        if (t != null && t == nestedValue) {
+            nestedValue = null;
+            t.release();
+        }
+    }
+
+    /**
+     * @return number of payloads created because the pool was empty, stays constant once the pool is warmed up
+     */
+    public long getCreatedEventCount() {
+        return pool.getCreatedCount();
+    }
+}
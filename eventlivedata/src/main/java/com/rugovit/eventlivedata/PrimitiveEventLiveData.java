@@ -0,0 +1,218 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.rugovit.eventlivedata.core.EventDispatcher;
+import com.rugovit.eventlivedata.core.EventSubscription;
+import com.rugovit.eventlivedata.core.LongPostQueue;
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static androidx.lifecycle.Lifecycle.State.STARTED;
+
+/**
+ * Common part of {@link IntEventLiveData}, {@link LongEventLiveData} and {@link BooleanEventLiveData},
+ * which hold everything except converting the primitive value to and from the queued long.
+ * <p>
+ * They are parallel classes to {@link EventLiveData}, not its subclasses: observers are registered with
+ * the same lifecycle rules as {@link EventLiveData} observers, but events never go through
+ * {@link androidx.lifecycle.LiveData}. setValue walks active observers directly and postValue stores
+ * values in a {@link LongPostQueue}, so events are never boxed.
+ *
+ * @param <O> observer type that receives the primitive value
+ */
+public abstract class PrimitiveEventLiveData<O> {
+
+    /**
+     * Post queue capacity used when capacity is not specified.
+     */
+    public static final int DEFAULT_POST_QUEUE_CAPACITY = 64;
+
+    private final EventObserverRegistry<Void> registry;
+    private final EventDispatcher<Void> dispatcher;
+    private final LongPostQueue postQueue;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final MainThreadScheduler mainThreadScheduler;
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drainPostQueue();
+        }
+    };
+    private final LongPostQueue.Consumer drainConsumer = new LongPostQueue.Consumer() {
+        @Override
+        public void accept(long value) {
+            dispatchPosted(value);
+        }
+    };
+
+    PrimitiveEventLiveData(MainThreadScheduler mainThreadScheduler, int postQueueCapacity, @NonNull OverflowPolicy overflowPolicy) {
+        this.registry = new EventObserverRegistry<>(this, mainThreadScheduler, new EventDispatcher.ActiveStateListener() {
+            @Override
+            public void onActive() {
+                onActiveEvent();
+            }
+
+            @Override
+            public void onInactive() {
+                PrimitiveEventLiveData.this.onInactive();
+            }
+        });
+        this.dispatcher = registry.getDispatcher();
+        this.postQueue = new LongPostQueue(postQueueCapacity, overflowPolicy);
+        this.mainThreadScheduler = mainThreadScheduler;
+    }
+
+    /**
+     * Sets value taken from the post queue through the subclass' setValue, called on the main thread.
+     */
+    abstract void dispatchPosted(long value);
+
+    /**
+     * Passes the value to the observer converted back to its primitive type.
+     */
+    abstract void onChanged(O observer, long value);
+
+    /**
+     * Same as {@link EventLiveData#observe(LifecycleOwner, androidx.lifecycle.Observer)}.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull O observer) {
+        registry.observe(owner, observer, STARTED, null, null);
+    }
+
+    /**
+     * Same as {@link EventLiveData#observe(LifecycleOwner, androidx.lifecycle.Observer, Lifecycle.State)}.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     * @param minimumStateForSendingEvent minimum lifecycle state in what owner has to be for Observer to be updated
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull O observer, @NonNull Lifecycle.State minimumStateForSendingEvent) {
+        registry.observe(owner, observer, minimumStateForSendingEvent, null, null);
+    }
+
+    /**
+     * Same as {@link EventLiveData#observeInOnStart(LifecycleOwner, androidx.lifecycle.Observer)}, should be called
+     * in {@link Fragment#onStart()} method.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     */
+    @MainThread
+    public void observeInOnStart(@NonNull LifecycleOwner owner, @NonNull O observer) {
+        registry.observe(owner, observer, STARTED, Lifecycle.Event.ON_STOP, null);
+    }
+
+    /**
+     * Same as {@link EventLiveData#observe(LifecycleOwner, androidx.lifecycle.Observer, Lifecycle.State, Lifecycle.Event)}.
+     *
+     * @param owner    The LifecycleOwner which controls the observer
+     * @param observer The observer that will receive the events
+     * @param minimumStateForSendingEvent minimum lifecycle state in what owner has to be for Observer to be updated
+     * @param removeObserverEvent maximum {@link Lifecycle.Event} that triggers removal of Event
+     */
+    @MainThread
+    public void observe(@NonNull LifecycleOwner owner, @NonNull O observer, @NonNull Lifecycle.State minimumStateForSendingEvent, Lifecycle.Event removeObserverEvent) {
+        registry.observe(owner, observer, minimumStateForSendingEvent, removeObserverEvent, null);
+    }
+
+    /**
+     * Adds observer that is always active, it has to be removed with {@link #removeObserver(Object)}.
+     *
+     * @param observer The observer that will receive the events
+     */
+    @MainThread
+    public void observeForever(@NonNull O observer) {
+        registry.observeForever(observer, null);
+    }
+
+    /**
+     * Removes the given observer from the observers list.
+     *
+     * @param observer The observer to be removed
+     */
+    @MainThread
+    public void removeObserver(@NonNull O observer) {
+        registry.removeObserver(observer);
+    }
+
+    /**
+     * Delivers the value to all active observers, must be called from the main thread.
+     */
+    @SuppressWarnings("unchecked")
+    final void dispatch(long value) {
+        registry.assertMainThread("setValue");
+        EventSubscription<Void>[] snapshot = dispatcher.getActiveSnapshot();
+        for (int i = 0; i < snapshot.length; i++) {
+            EventSubscription<Void> subscription = snapshot[i];
+            // subscription could be removed or deactivated by one of the previous observers
+            if (subscription.isActive()) {
+                onChanged((O) subscription.getObserver(), value);
+            }
+        }
+    }
+
+    final void post(long value) {
+        postQueue.offer(value);
+        if (drainScheduled.compareAndSet(false, true)) {
+            mainThreadScheduler.post(drainRunnable);
+        }
+    }
+
+    private void drainPostQueue() {
+        drainScheduled.set(false);
+        // values posted while draining are left for the next message so main thread is never starved
+        postQueue.drain(drainConsumer, postQueue.capacity());
+        if (!postQueue.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            mainThreadScheduler.post(drainRunnable);
+        }
+    }
+
+    /**
+     * Removes all observers bound to the given owner.
+     *
+     * @param owner The LifecycleOwner scope for the observers to be removed.
+     */
+    @MainThread
+    public void removeObservers(@NonNull LifecycleOwner owner) {
+        registry.removeObservers(owner);
+    }
+
+    /**
+     * @return number of posted events dropped by the {@link OverflowPolicy} since creation
+     */
+    public long getDroppedEventCount() {
+        return postQueue.getDroppedCount();
+    }
+
+    /**
+     * Called when the number of active observers change to 1 from 0.
+     */
+    protected void onActiveEvent() {}
+
+    /**
+     * Called when the number of active observers change from 1 to 0.
+     */
+    protected void onInactive() {}
+
+    @SuppressWarnings("WeakerAccess")
+    public boolean hasObservers() {
+        return dispatcher.hasSubscriptions();
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public boolean hasActiveObservers() {
+        return dispatcher.getActiveCount() > 0;
+    }
+}
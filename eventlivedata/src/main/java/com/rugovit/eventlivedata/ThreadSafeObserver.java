@@ -0,0 +1,16 @@
+package com.rugovit.eventlivedata;
+
+import androidx.lifecycle.Observer;
+
+/**
+ * {@link Observer} that declares it can be called from any thread, concurrently with other observers
+ * and with other events, and does not depend on the order of events.
+ * <p>
+ * Once {@link EventLiveData#setParallelExecutor(java.util.concurrent.Executor, int, boolean)} is set, such
+ * observers are called on the executor in parallel instead of one after another on the main thread.
+ * Use for caches, loggers and reducers, never for observers that touch views.
+ *
+ * @param <T> The type of the parameter
+ */
+public interface ThreadSafeObserver<T> extends Observer<T> {
+}
@@ -0,0 +1,138 @@
+package com.rugovit.eventlivedata;
+
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.core.EventPool;
+import com.rugovit.eventlivedata.core.PooledEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM tests have no frames, {@link EventBatchDelivery#run()} stands for the frame callback.
+ */
+public class EventBatchDeliveryTest {
+
+    private final EventPool<Payload> pool = new EventPool<>(4, new EventPool.Factory<Payload>() {
+        @Override
+        public Payload create() {
+            return new Payload();
+        }
+    });
+    private final List<List<String>> batches = new ArrayList<>();
+    private final EventBatchDelivery<String> delivery = new EventBatchDelivery<>(new Observer<List<String>>() {
+        @Override
+        public void onChanged(List<String> batch) {
+            batches.add(new ArrayList<>(batch));
+        }
+    });
+
+    @Test
+    public void eventsOfOneFrameAreDeliveredAsOneList() {
+        delivery.deliver("a");
+        delivery.deliver("b");
+        assertTrue(batches.isEmpty());
+
+        delivery.run();
+        assertEquals(Collections.singletonList(Arrays.asList("a", "b")), batches);
+    }
+
+    @Test
+    public void frameWithoutEventsDoesNotCallObserver() {
+        delivery.deliver("a");
+        delivery.run();
+        delivery.run();
+
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void eventsDispatchedByObserverGoToNextFrame() {
+        final List<List<String>> received = new ArrayList<>();
+        final EventBatchDelivery<String>[] self = newDeliveryArray();
+        self[0] = new EventBatchDelivery<>(new Observer<List<String>>() {
+            @Override
+            public void onChanged(List<String> batch) {
+                received.add(new ArrayList<>(batch));
+                if (batch.contains("a")) {
+                    self[0].deliver("c");
+                }
+            }
+        });
+        self[0].deliver("a");
+        self[0].deliver("b");
+        self[0].run();
+        self[0].run();
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Collections.singletonList("c")), received);
+    }
+
+    @Test
+    public void pendingBatchIsDroppedOnDeactivation() {
+        Payload payload = pool.obtain();
+        EventBatchDelivery<Payload> payloads = new EventBatchDelivery<>(new Observer<List<Payload>>() {
+            @Override
+            public void onChanged(List<Payload> batch) {
+                batches.add(Collections.singletonList("delivered"));
+            }
+        });
+        payloads.deliver(payload);
+        assertEquals(2, payload.getRefCount());
+
+        payloads.onActiveStateChanged(false);
+        payloads.run();
+        assertTrue(batches.isEmpty());
+        assertEquals(1, payload.getRefCount());
+    }
+
+    @Test
+    public void pooledEventIsRetainedUntilItsBatchWasDelivered() {
+        final Payload payload = pool.obtain();
+        final List<Integer> refCounts = new ArrayList<>();
+        EventBatchDelivery<Payload> payloads = new EventBatchDelivery<>(new Observer<List<Payload>>() {
+            @Override
+            public void onChanged(List<Payload> batch) {
+                refCounts.add(batch.get(0).getRefCount());
+            }
+        });
+        payloads.deliver(payload);
+        // dispatch loop releases its own reference once the event was handed to every delivery
+        payload.release();
+        payloads.run();
+
+        assertEquals(Collections.singletonList(1), refCounts);
+        assertEquals(0, payload.getRefCount());
+    }
+
+    @Test
+    public void closeReleasesPendingEventsAndStopsDelivery() {
+        Payload payload = pool.obtain();
+        EventBatchDelivery<Payload> payloads = new EventBatchDelivery<>(new Observer<List<Payload>>() {
+            @Override
+            public void onChanged(List<Payload> batch) {
+                batches.add(Collections.singletonList("delivered"));
+            }
+        });
+        payloads.deliver(payload);
+        payloads.close();
+        payloads.run();
+
+        assertTrue(batches.isEmpty());
+        assertEquals(1, payload.getRefCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventBatchDelivery<String>[] newDeliveryArray() {
+        return new EventBatchDelivery[1];
+    }
+
+    private static final class Payload extends PooledEvent {
+    }
+}
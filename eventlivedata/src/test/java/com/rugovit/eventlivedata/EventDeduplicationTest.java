@@ -0,0 +1,129 @@
+package com.rugovit.eventlivedata;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.arch.core.util.Function;
+import androidx.lifecycle.Observer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class EventDeduplicationTest {
+
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+    @Rule
+    public final TestMainThreadRule mainThreadRule = new TestMainThreadRule();
+
+    private final TestClock clock = new TestClock();
+    private final List<String> received = new ArrayList<>();
+    private MutableEventLiveData<String> liveData;
+
+    @Before
+    public void setUp() {
+        liveData = new MutableEventLiveData<>(mainThreadRule);
+        liveData.observeForever(new Observer<String>() {
+            @Override
+            public void onChanged(String event) {
+                received.add(event);
+            }
+        });
+    }
+
+    @Test
+    public void duplicateInsideWindowIsDropped() {
+        liveData.setDeduplication(null, 100, clock);
+        liveData.setValue("a");
+        clock.now = 99;
+        liveData.setValue("a");
+        liveData.setValue("b");
+        liveData.setValue("a");
+
+        assertEquals(Arrays.asList("a", "b", "a"), received);
+        assertEquals(1, liveData.getSuppressedDuplicateCount());
+    }
+
+    @Test
+    public void duplicateAfterWindowIsDelivered() {
+        liveData.setDeduplication(null, 100, clock);
+        liveData.setValue("a");
+        clock.now = 100;
+        liveData.setValue("a");
+
+        assertEquals(Arrays.asList("a", "a"), received);
+        assertEquals(0, liveData.getSuppressedDuplicateCount());
+    }
+
+    @Test
+    public void windowStartsAtLastAcceptedEvent() {
+        liveData.setDeduplication(null, 100, clock);
+        liveData.setValue("a");
+        clock.now = 50;
+        liveData.setValue("a");
+        clock.now = 120;
+        // the dropped duplicate at 50 did not extend the window
+        liveData.setValue("a");
+
+        assertEquals(Arrays.asList("a", "a"), received);
+    }
+
+    @Test
+    public void eventsAreComparedByKey() {
+        liveData.setDeduplication(new Function<String, Object>() {
+            @Override
+            public Object apply(String input) {
+                return input.charAt(0);
+            }
+        }, 100, clock);
+        liveData.setValue("a1");
+        liveData.setValue("a2");
+        liveData.setValue("b1");
+
+        assertEquals(Arrays.asList("a1", "b1"), received);
+    }
+
+    @Test
+    public void postedDuplicateIsDroppedWithoutPosting() {
+        liveData.setDeduplication(null, 100, clock);
+        liveData.postValue("a");
+        mainThreadRule.runPending();
+        liveData.postValue("a");
+
+        assertEquals(0, mainThreadRule.getPendingCount());
+        assertEquals(Collections.singletonList("a"), received);
+        assertEquals(1, liveData.getSuppressedDuplicateCount());
+    }
+
+    @Test
+    public void postedAndSetEventsShareTheWindow() {
+        liveData.setDeduplication(null, 100, clock);
+        liveData.postValue("a");
+        mainThreadRule.runPending();
+        liveData.setValue("a");
+
+        assertEquals(Collections.singletonList("a"), received);
+    }
+
+    @Test
+    public void clearedDeduplicationDeliversDuplicates() {
+        liveData.setDeduplication(null, 100, clock);
+        liveData.setValue("a");
+        liveData.clearDeduplication();
+        liveData.setValue("a");
+
+        assertEquals(Arrays.asList("a", "a"), received);
+        assertEquals(0, liveData.getSuppressedDuplicateCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveWindowIsRejected() {
+        liveData.setDeduplication(0);
+    }
+}
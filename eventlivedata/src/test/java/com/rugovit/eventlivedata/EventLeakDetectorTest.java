@@ -0,0 +1,192 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.app.TestRegistrations;
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EventLeakDetectorTest {
+
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+    @Rule
+    public final TestMainThreadRule mainThreadRule = new TestMainThreadRule();
+
+    private final List<String> duplicates = new ArrayList<>();
+    private final List<String> limits = new ArrayList<>();
+    private final List<LifecycleOwner> reportedOwners = new ArrayList<>();
+    private final List<Object> reportedSources = new ArrayList<>();
+    private MutableEventLiveData<String> liveData;
+
+    @Before
+    public void setUp() {
+        liveData = new MutableEventLiveData<>(mainThreadRule);
+        installDetector(1);
+    }
+
+    @After
+    public void tearDown() {
+        EventLiveData.setLeakDetector(null);
+    }
+
+    private void installDetector(int sampleInterval) {
+        EventLiveData.setLeakDetector(new EventLeakDetector(3, sampleInterval) {
+            @Override
+            public void onDuplicateObserver(@NonNull Object source, LifecycleOwner owner, @NonNull StackTraceElement callSite, int observerCount, int duplicateCount) {
+                reportedSources.add(source);
+                reportedOwners.add(owner);
+                duplicates.add(callSite.getMethodName() + " " + observerCount + " " + duplicateCount);
+            }
+
+            @Override
+            public void onObserverLimitExceeded(@NonNull Object source, LifecycleOwner owner, StackTraceElement callSite, int observerCount) {
+                reportedSources.add(source);
+                reportedOwners.add(owner);
+                limits.add(callSite.getMethodName() + " " + observerCount);
+            }
+        });
+    }
+
+    @Test
+    public void sameCallSiteOnSameOwnerIsReported() {
+        TestOwner owner = new TestOwner();
+        TestRegistrations.observe(liveData, owner);
+        TestRegistrations.observe(liveData, owner);
+
+        assertEquals(Collections.singletonList("observe 2 1"), duplicates);
+        assertEquals(Collections.<LifecycleOwner>singletonList(owner), reportedOwners);
+        assertSame(liveData, reportedSources.get(0));
+    }
+
+    @Test
+    public void differentCallSitesOfSameObserverClassAreNotReported() {
+        TestOwner owner = new TestOwner();
+        TestRegistrations.observe(liveData, owner);
+        TestRegistrations.observeElsewhere(liveData, owner);
+
+        assertEquals(Collections.<String>emptyList(), duplicates);
+    }
+
+    @Test
+    public void duplicatesAreCountedPerOwnerClassAndCallSite() {
+        TestOwner first = new TestOwner();
+        TestOwner second = new TestOwner();
+        TestRegistrations.observe(liveData, first);
+        TestRegistrations.observe(liveData, second);
+        TestRegistrations.observe(liveData, first);
+        TestRegistrations.observe(liveData, second);
+
+        assertEquals(Arrays.asList("observe 2 1", "observe 2 2"), duplicates);
+    }
+
+    @Test
+    public void ownerOverLimitIsReportedOnce() {
+        TestOwner owner = new TestOwner();
+        for (int i = 0; i < 5; i++) {
+            TestRegistrations.observeElsewhere(liveData, owner);
+        }
+
+        assertEquals(Collections.singletonList("observeElsewhere 4"), limits);
+    }
+
+    @Test
+    public void foreverObserversFromSameCallSiteAreReported() {
+        TestRegistrations.observeForever(liveData, TestRegistrations.newObserver());
+        TestRegistrations.observeForever(liveData, TestRegistrations.newObserver());
+
+        assertEquals(Collections.singletonList("observeForever 2 1"), duplicates);
+        assertNull(reportedOwners.get(0));
+    }
+
+    @Test
+    public void keyedForeverObserversFromSameCallSiteAreReported() {
+        EventLiveDataBus bus = new EventLiveDataBus(mainThreadRule, EventLiveDataBus.DEFAULT_POST_QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST);
+        TestRegistrations.observeForever(bus, "topic", TestRegistrations.newObserver());
+        TestRegistrations.observeForever(bus, "topic", TestRegistrations.newObserver());
+
+        assertEquals(Collections.singletonList("observeForever 2 1"), duplicates);
+        assertSame(bus, reportedSources.get(0));
+    }
+
+    @Test
+    public void weakForeverObserversFromSameCallSiteAreReported() {
+        Observer<String> first = TestRegistrations.newObserver();
+        Observer<String> second = TestRegistrations.newObserver();
+        TestRegistrations.observeForeverWeak(liveData, first);
+        TestRegistrations.observeForeverWeak(liveData, second);
+
+        assertEquals(Collections.singletonList("observeForeverWeak 2 1"), duplicates);
+        assertNull(reportedOwners.get(0));
+    }
+
+    @Test
+    public void foreverLimitIsReportedAgainAfterDroppingUnderIt() {
+        List<Observer<String>> observers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            observers.add(TestRegistrations.newObserver());
+            TestRegistrations.observeForever(liveData, observers.get(i));
+        }
+        assertEquals(Collections.singletonList("observeForever 4"), limits);
+
+        liveData.removeObserver(observers.get(3));
+        liveData.removeObserver(observers.get(2));
+        TestRegistrations.observeForever(liveData, observers.get(2));
+        TestRegistrations.observeForever(liveData, observers.get(3));
+
+        assertEquals(Arrays.asList("observeForever 4", "observeForever 4"), limits);
+    }
+
+    @Test
+    public void unsampledRegistrationsAreNotCompared() {
+        installDetector(2);
+        for (int i = 0; i < 4; i++) {
+            TestRegistrations.observeForever(liveData, TestRegistrations.newObserver());
+        }
+
+        // only the first and the third registration were sampled
+        assertEquals(Collections.singletonList("observeForever 2 1"), duplicates);
+    }
+
+    private static final class TestOwner implements LifecycleOwner {
+        private final Lifecycle lifecycle = new Lifecycle() {
+            @Override
+            public void addObserver(@NonNull LifecycleObserver observer) {
+            }
+
+            @Override
+            public void removeObserver(@NonNull LifecycleObserver observer) {
+            }
+
+            @NonNull
+            @Override
+            public State getCurrentState() {
+                return State.RESUMED;
+            }
+        };
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return lifecycle;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.rugovit.eventlivedata;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventLiveDataBusTest {
+
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+    @Rule
+    public final TestMainThreadRule mainThreadRule = new TestMainThreadRule();
+
+    private final List<String> received = new ArrayList<>();
+    private EventLiveDataBus bus;
+    private TestLifecycleOwner owner;
+
+    @Before
+    public void setUp() {
+        bus = new EventLiveDataBus(mainThreadRule, EventLiveDataBus.DEFAULT_POST_QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST);
+        owner = new TestLifecycleOwner();
+        owner.handle(Lifecycle.Event.ON_CREATE);
+        owner.handle(Lifecycle.Event.ON_START);
+    }
+
+    private <E> Observer<E> recorder(final String name) {
+        return new Observer<E>() {
+            @Override
+            public void onChanged(E event) {
+                received.add(name + ":" + event);
+            }
+        };
+    }
+
+    @Test
+    public void topicEventReachesOnlyObserversOfThatTopic() {
+        bus.observe(owner, "login", recorder("login"));
+        bus.observeForever("logout", recorder("logout"));
+        bus.send("login", "ok");
+        bus.send("logout", null);
+        bus.send("other", "ignored");
+
+        assertEquals(Arrays.asList("login:ok", "logout:null"), received);
+    }
+
+    @Test
+    public void classObserverReceivesSubclassesAndImplementations() {
+        bus.observeForever(CharSequence.class, this.<CharSequence>recorder("chars"));
+        bus.observeForever(Object.class, recorder("object"));
+        bus.observeForever(Integer.class, this.<Integer>recorder("integer"));
+        bus.send("text");
+
+        assertEquals(Arrays.asList("chars:text", "object:text"), received);
+    }
+
+    @Test
+    public void classTopicIsMatchedExactly() {
+        bus.observeForever(CharSequence.class, this.<CharSequence>recorder("chars"));
+        bus.observeForever(String.class, this.<String>recorder("string"));
+        bus.send(String.class, "event");
+
+        assertEquals(Collections.singletonList("string:event"), received);
+    }
+
+    @Test
+    public void routeIsUpdatedWhenObserversChange() {
+        bus.send("first");
+        Observer<String> observer = recorder("string");
+        bus.observe(owner, String.class, observer);
+        bus.send("second");
+        owner.handle(Lifecycle.Event.ON_STOP);
+        bus.send("stopped");
+        owner.handle(Lifecycle.Event.ON_START);
+        bus.send("restarted");
+        bus.removeObserver(observer);
+        bus.send("removed");
+
+        assertEquals(Arrays.asList("string:second", "string:restarted"), received);
+    }
+
+    @Test
+    public void observeInOnStartIsRemovedOnStop() {
+        bus.observeInOnStart(owner, "topic", recorder("topic"));
+        bus.send("topic", "started");
+        owner.handle(Lifecycle.Event.ON_STOP);
+
+        assertFalse(bus.hasObservers());
+        owner.handle(Lifecycle.Event.ON_START);
+        bus.send("topic", "restarted");
+        assertEquals(Collections.singletonList("topic:started"), received);
+    }
+
+    @Test
+    public void removeObserversRemovesEveryTopicOfTheOwner() {
+        bus.observe(owner, "a", recorder("a"));
+        bus.observe(owner, Integer.class, this.<Integer>recorder("integer"));
+        bus.observeForever("a", recorder("forever"));
+
+        bus.removeObservers(owner);
+        bus.send("a", "event");
+        bus.send(1);
+
+        assertEquals(Collections.singletonList("forever:event"), received);
+        assertEquals(0, owner.getObserverCount());
+    }
+
+    @Test
+    public void postedEventsAreSentInPostedOrder() {
+        bus.observeForever("topic", recorder("topic"));
+        bus.observeForever(Integer.class, this.<Integer>recorder("integer"));
+        bus.post("topic", "a");
+        bus.post(1);
+        bus.post("topic", "b");
+        assertTrue(received.isEmpty());
+
+        mainThreadRule.runPending();
+        assertEquals(Arrays.asList("topic:a", "integer:1", "topic:b"), received);
+    }
+
+    @Test
+    public void overflowingPostQueueDropsOldestEvents() {
+        EventLiveDataBus small = new EventLiveDataBus(mainThreadRule, 2, OverflowPolicy.DROP_OLDEST);
+        small.observeForever("topic", recorder("topic"));
+        small.post("topic", "a");
+        small.post("topic", "b");
+        small.post("topic", "c");
+        mainThreadRule.runPending();
+
+        assertEquals(Arrays.asList("topic:b", "topic:c"), received);
+        assertEquals(1, small.getDroppedEventCount());
+    }
+
+    @Test
+    public void inactiveOwnerDoesNotReceive() {
+        owner.handle(Lifecycle.Event.ON_STOP);
+        bus.observe(owner, "topic", recorder("topic"));
+        bus.send("topic", "event");
+
+        assertTrue(bus.hasObservers());
+        assertFalse(bus.hasActiveObservers());
+        assertTrue(received.isEmpty());
+    }
+}
@@ -0,0 +1,189 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventLiveDataMonitorTest {
+
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+    @Rule
+    public final TestMainThreadRule mainThreadRule = new TestMainThreadRule();
+
+    private final List<String> received = new ArrayList<>();
+    private final Observer<String> recorder = new Observer<String>() {
+        @Override
+        public void onChanged(String event) {
+            received.add(event);
+        }
+    };
+    private final RecordingMonitor monitor = new RecordingMonitor();
+    private MutableEventLiveData<String> liveData;
+
+    @Before
+    public void setUp() {
+        liveData = new MutableEventLiveData<>(mainThreadRule);
+        liveData.setMonitor(monitor);
+    }
+
+    @After
+    public void tearDown() {
+        EventLiveData.setGlobalMonitor(null);
+    }
+
+    @Test
+    public void setValueReportsDispatchAndEveryObserver() {
+        TestLifecycleOwner owner = new TestLifecycleOwner();
+        owner.handle(Lifecycle.Event.ON_CREATE);
+        liveData.observeForever(recorder);
+        liveData.observe(owner, new Observer<String>() {
+            @Override
+            public void onChanged(String event) {
+            }
+        });
+        liveData.setValue("event");
+
+        assertEquals(Collections.singletonList("dispatched 2 1"), monitor.dispatches);
+        assertEquals(Collections.singletonList(-1L), monitor.postLatencies);
+        assertEquals(Collections.singletonList((Object) recorder), monitor.observers);
+        assertEquals(0, monitor.lostCount);
+    }
+
+    @Test
+    public void eventWithoutActiveObserverIsReportedLost() {
+        TestLifecycleOwner owner = new TestLifecycleOwner();
+        owner.handle(Lifecycle.Event.ON_CREATE);
+        liveData.observe(owner, recorder);
+        liveData.setValue("event");
+
+        assertEquals(1, monitor.lostCount);
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void postsMergedInTheSlotAreReportedCoalesced() {
+        liveData.observeForever(recorder);
+        liveData.postValue("a");
+        liveData.postValue("b");
+        liveData.postValue("c");
+        assertTrue(received.isEmpty());
+
+        mainThreadRule.runPending();
+        assertEquals(Collections.singletonList("c"), received);
+        assertEquals(Collections.singletonList(2), monitor.coalesced);
+        assertEquals(1, monitor.postLatencies.size());
+        assertTrue(monitor.postLatencies.get(0) >= 0);
+    }
+
+    @Test
+    public void postedEventIsToldApartFromSetValue() {
+        liveData.observeForever(recorder);
+        liveData.postValue("posted");
+        liveData.setValue("set");
+        mainThreadRule.runPending();
+
+        assertEquals(Arrays.asList("set", "posted"), received);
+        assertEquals(-1L, (long) monitor.postLatencies.get(0));
+        assertTrue(monitor.postLatencies.get(1) >= 0);
+    }
+
+    @Test
+    public void postedNullIsDelivered() {
+        liveData.observeForever(recorder);
+        liveData.postValue(null);
+        mainThreadRule.runPending();
+
+        assertEquals(Collections.singletonList((String) null), received);
+    }
+
+    @Test
+    public void slotIsReusedAfterDrain() {
+        liveData.observeForever(recorder);
+        liveData.postValue("a");
+        mainThreadRule.runPending();
+        liveData.postValue("b");
+        mainThreadRule.runPending();
+
+        assertEquals(Arrays.asList("a", "b"), received);
+        assertTrue(monitor.coalesced.isEmpty());
+    }
+
+    @Test
+    public void losslessQueueNeverCoalesces() {
+        MutableEventLiveData<String> lossless = new MutableEventLiveData<>(mainThreadRule, 8, OverflowPolicy.DROP_OLDEST);
+        lossless.setMonitor(monitor);
+        lossless.observeForever(recorder);
+        lossless.postValue("a");
+        lossless.postValue("b");
+        mainThreadRule.runPending();
+
+        assertEquals(Arrays.asList("a", "b"), received);
+        assertTrue(monitor.coalesced.isEmpty());
+        assertEquals(2, monitor.postLatencies.size());
+    }
+
+    @Test
+    public void instanceMonitorTakesPrecedenceOverGlobalOne() {
+        RecordingMonitor global = new RecordingMonitor();
+        EventLiveData.setGlobalMonitor(global);
+        MutableEventLiveData<String> other = new MutableEventLiveData<>(mainThreadRule);
+        liveData.observeForever(recorder);
+        other.observeForever(recorder);
+        liveData.setValue("a");
+        other.setValue("b");
+
+        assertEquals(1, monitor.dispatches.size());
+        assertEquals(1, global.dispatches.size());
+
+        liveData.setMonitor(null);
+        liveData.setValue("c");
+        assertEquals(2, global.dispatches.size());
+    }
+
+    private static final class RecordingMonitor extends EventLiveDataMonitor {
+        final List<String> dispatches = new ArrayList<>();
+        final List<Object> observers = new ArrayList<>();
+        final List<Long> postLatencies = new ArrayList<>();
+        final List<Integer> coalesced = new ArrayList<>();
+        int lostCount;
+
+        @Override
+        public void onEventDispatched(@NonNull EventLiveData<?> source, long durationNanos, int observerCount, int activeObserverCount) {
+            assertTrue(durationNanos >= 0);
+            dispatches.add("dispatched " + observerCount + " " + activeObserverCount);
+        }
+
+        @Override
+        public void onObserverDispatched(@NonNull EventLiveData<?> source, @NonNull Object observer, long durationNanos, long postLatencyNanos) {
+            observers.add(observer);
+            postLatencies.add(postLatencyNanos);
+        }
+
+        @Override
+        public void onEventLost(@NonNull EventLiveData<?> source) {
+            lostCount++;
+        }
+
+        @Override
+        public void onPostCoalesced(@NonNull EventLiveData<?> source, int coalescedCount) {
+            coalesced.add(coalescedCount);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.rugovit.eventlivedata;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.Observer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventOwnerBindingTest {
+
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+    @Rule
+    public final TestMainThreadRule mainThreadRule = new TestMainThreadRule();
+
+    private final List<String> received = new ArrayList<>();
+    private MutableEventLiveData<String> liveData;
+    private TestLifecycleOwner owner;
+
+    @Before
+    public void setUp() {
+        liveData = new MutableEventLiveData<>(mainThreadRule);
+        owner = new TestLifecycleOwner();
+        owner.handle(Lifecycle.Event.ON_CREATE);
+    }
+
+    private Observer<String> recorder(final String name) {
+        return new Observer<String>() {
+            @Override
+            public void onChanged(String event) {
+                received.add(name + ":" + event);
+            }
+        };
+    }
+
+    @Test
+    public void ownerGetsOneLifecycleObserverForAllItsObservers() {
+        liveData.observe(owner, recorder("a"));
+        liveData.observe(owner, recorder("b"));
+        liveData.observe(owner, recorder("c"));
+
+        assertEquals(1, owner.getObserverCount());
+        assertEquals(3, liveData.getObserverCount());
+    }
+
+    @Test
+    public void observersFollowOwnerState() {
+        liveData.observe(owner, recorder("a"));
+        liveData.setValue("created");
+        owner.handle(Lifecycle.Event.ON_START);
+        liveData.setValue("started");
+        // added to an owner that already has a binding
+        liveData.observe(owner, recorder("b"));
+        liveData.setValue("both");
+        owner.handle(Lifecycle.Event.ON_STOP);
+        liveData.setValue("stopped");
+
+        assertEquals(Arrays.asList("a:started", "a:both", "b:both"), received);
+        assertEquals(0, liveData.getActiveObserverCount());
+    }
+
+    @Test
+    public void minimumStateIsAppliedPerObserver() {
+        liveData.observe(owner, recorder("started"));
+        liveData.observe(owner, recorder("resumed"), Lifecycle.State.RESUMED);
+        owner.handle(Lifecycle.Event.ON_START);
+        liveData.setValue("1");
+        owner.handle(Lifecycle.Event.ON_RESUME);
+        liveData.setValue("2");
+
+        assertEquals(Arrays.asList("started:1", "started:2", "resumed:2"), received);
+    }
+
+    @Test
+    public void destroyRemovesAllObserversOfTheOwner() {
+        TestLifecycleOwner other = new TestLifecycleOwner();
+        other.handle(Lifecycle.Event.ON_START);
+        liveData.observe(owner, recorder("a"));
+        liveData.observe(owner, recorder("b"));
+        liveData.observe(other, recorder("other"));
+
+        owner.handle(Lifecycle.Event.ON_DESTROY);
+        liveData.setValue("event");
+
+        assertEquals(0, owner.getObserverCount());
+        assertEquals(1, liveData.getObserverCount());
+        assertEquals(Collections.singletonList("other:event"), received);
+    }
+
+    @Test
+    public void removeObserversRemovesOnlyThatOwner() {
+        TestLifecycleOwner other = new TestLifecycleOwner();
+        other.handle(Lifecycle.Event.ON_START);
+        owner.handle(Lifecycle.Event.ON_START);
+        liveData.observe(owner, recorder("a"));
+        liveData.observe(other, recorder("other"));
+
+        liveData.removeObservers(owner);
+        liveData.setValue("event");
+
+        assertEquals(0, owner.getObserverCount());
+        assertEquals(1, other.getObserverCount());
+        assertEquals(Collections.singletonList("other:event"), received);
+    }
+
+    @Test
+    public void removeObserverEventRemovesOnlyObserversRegisteredWithIt() {
+        owner.handle(Lifecycle.Event.ON_START);
+        owner.handle(Lifecycle.Event.ON_RESUME);
+        liveData.observe(owner, recorder("untilPause"), Lifecycle.State.STARTED, Lifecycle.Event.ON_PAUSE);
+        liveData.observe(owner, recorder("kept"));
+
+        owner.handle(Lifecycle.Event.ON_PAUSE);
+        liveData.setValue("event");
+
+        assertEquals(1, liveData.getObserverCount());
+        assertEquals(1, owner.getObserverCount());
+        assertEquals(Collections.singletonList("kept:event"), received);
+    }
+
+    @Test
+    public void removingLastObserverUnregistersFromOwner() {
+        Observer<String> observer = recorder("a");
+        liveData.observe(owner, observer);
+        liveData.removeObserver(observer);
+
+        assertEquals(0, owner.getObserverCount());
+        assertFalse(liveData.hasObservers());
+    }
+
+    @Test
+    public void destroyedOwnerIsIgnored() {
+        owner.handle(Lifecycle.Event.ON_DESTROY);
+        liveData.observe(owner, recorder("a"));
+
+        assertEquals(0, owner.getObserverCount());
+        assertFalse(liveData.hasObservers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sameObserverWithAnotherOwnerIsRejected() {
+        Observer<String> observer = recorder("a");
+        liveData.observe(owner, observer);
+        liveData.observe(new TestLifecycleOwner(), observer);
+    }
+
+    @Test
+    public void ownerCanObserveAgainAfterItsBindingWasDropped() {
+        owner.handle(Lifecycle.Event.ON_START);
+        Observer<String> observer = recorder("a");
+        liveData.observe(owner, observer);
+        liveData.removeObservers(owner);
+        liveData.observe(owner, observer);
+        liveData.setValue("event");
+
+        assertTrue(liveData.hasActiveObservers());
+        assertEquals(Collections.singletonList("a:event"), received);
+    }
+}
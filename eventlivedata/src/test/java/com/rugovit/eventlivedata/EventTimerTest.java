@@ -0,0 +1,182 @@
+package com.rugovit.eventlivedata;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EventTimerTest {
+
+    private TestClock clock;
+    private TestTickScheduler scheduler;
+    private EventTimer timer;
+
+    @Before
+    public void setUp() {
+        clock = new TestClock();
+        clock.now = 1000;
+        scheduler = new TestTickScheduler(clock);
+        timer = new EventTimer(clock, scheduler);
+    }
+
+    @Test
+    public void idleTimerPostsNothing() {
+        scheduler.advanceTo(10000);
+        assertEquals(0, scheduler.postCount);
+    }
+
+    @Test
+    public void tickIsPostedForDeadline() {
+        CountingTask task = new CountingTask();
+        timer.schedule(task, 500);
+        assertEquals(1500, scheduler.tickTime);
+
+        scheduler.advanceTo(1499);
+        assertEquals(0, task.runCount);
+        scheduler.advanceTo(1500);
+        assertEquals(1, task.runCount);
+        assertNull(scheduler.tick);
+        assertEquals(1, scheduler.postCount);
+    }
+
+    @Test
+    public void deadlineIsRoundedUpToTick() {
+        CountingTask task = new CountingTask();
+        timer.schedule(task, 15);
+        assertEquals(1020, scheduler.tickTime);
+        scheduler.advanceTo(1015);
+        assertEquals(0, task.runCount);
+        scheduler.advanceTo(1020);
+        assertEquals(1, task.runCount);
+    }
+
+    @Test
+    public void earlierTaskMovesTick() {
+        CountingTask late = new CountingTask();
+        CountingTask early = new CountingTask();
+        timer.schedule(late, 800);
+        timer.schedule(early, 200);
+        assertEquals(1200, scheduler.tickTime);
+
+        scheduler.advanceTo(1200);
+        assertEquals(1, early.runCount);
+        assertEquals(0, late.runCount);
+        assertEquals(1800, scheduler.tickTime);
+
+        scheduler.advanceTo(1800);
+        assertEquals(1, late.runCount);
+        assertNull(scheduler.tick);
+    }
+
+    @Test
+    public void laterTaskKeepsTick() {
+        timer.schedule(new CountingTask(), 200);
+        timer.schedule(new CountingTask(), 800);
+        assertEquals(1200, scheduler.tickTime);
+        assertEquals(1, scheduler.postCount);
+    }
+
+    @Test
+    public void taskBeyondWheelTurnIsPostedForItsDeadline() {
+        CountingTask task = new CountingTask();
+        timer.schedule(task, 60000);
+        assertEquals(61000, scheduler.tickTime);
+
+        scheduler.advanceTo(60999);
+        assertEquals(0, task.runCount);
+        scheduler.advanceTo(61000);
+        assertEquals(1, task.runCount);
+    }
+
+    @Test
+    public void nextTaskBeyondWheelTurnIsFound() {
+        CountingTask near = new CountingTask();
+        CountingTask far = new CountingTask();
+        timer.schedule(near, 100);
+        timer.schedule(far, 30000);
+
+        scheduler.advanceTo(1100);
+        assertEquals(1, near.runCount);
+        assertEquals(31000, scheduler.tickTime);
+        scheduler.advanceTo(31000);
+        assertEquals(1, far.runCount);
+    }
+
+    @Test
+    public void cancellingLastTaskRemovesTick() {
+        CountingTask first = new CountingTask();
+        CountingTask second = new CountingTask();
+        timer.schedule(first, 100);
+        timer.schedule(second, 300);
+        timer.cancel(first);
+        assertTrue(scheduler.tick != null);
+        timer.cancel(second);
+        assertNull(scheduler.tick);
+        assertFalse(second.isScheduled());
+
+        scheduler.advanceTo(5000);
+        assertEquals(0, first.runCount);
+        assertEquals(0, second.runCount);
+    }
+
+    @Test
+    public void rescheduledTaskRunsOnce() {
+        CountingTask task = new CountingTask();
+        timer.schedule(task, 100);
+        clock.now = 1050;
+        timer.schedule(task, 100);
+
+        scheduler.advanceTo(1100);
+        assertEquals(0, task.runCount);
+        scheduler.advanceTo(1150);
+        assertEquals(1, task.runCount);
+        scheduler.advanceTo(5000);
+        assertEquals(1, task.runCount);
+    }
+
+    @Test
+    public void taskCanRescheduleItself() {
+        final int[] runs = new int[1];
+        EventTimer.Task task = new EventTimer.Task() {
+            @Override
+            public void run() {
+                if (++runs[0] < 3) {
+                    timer.schedule(this, 100);
+                }
+            }
+        };
+        timer.schedule(task, 100);
+
+        scheduler.advanceTo(1100);
+        assertEquals(1, runs[0]);
+        scheduler.advanceTo(1300);
+        assertEquals(3, runs[0]);
+        assertNull(scheduler.tick);
+    }
+
+    @Test
+    public void manualTimerRunsDueTasksOnAdvance() {
+        EventTimer manual = new EventTimer(clock);
+        CountingTask task = new CountingTask();
+        manual.schedule(task, 100);
+
+        clock.now = 1099;
+        manual.advance();
+        assertEquals(0, task.runCount);
+        clock.now = 1100;
+        manual.advance();
+        assertEquals(1, task.runCount);
+    }
+
+    private static final class CountingTask extends EventTimer.Task {
+        int runCount;
+
+        @Override
+        public void run() {
+            runCount++;
+        }
+    }
+}
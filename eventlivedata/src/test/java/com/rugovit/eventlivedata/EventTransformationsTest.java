@@ -0,0 +1,160 @@
+package com.rugovit.eventlivedata;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.arch.core.util.Function;
+import androidx.lifecycle.Observer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventTransformationsTest {
+
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+    @Rule
+    public final TestMainThreadRule mainThreadRule = new TestMainThreadRule();
+
+    private final List<Object> received = new ArrayList<>();
+    private final Observer<Object> recorder = new Observer<Object>() {
+        @Override
+        public void onChanged(Object event) {
+            received.add(event);
+        }
+    };
+    private final Function<String, Integer> length = new Function<String, Integer>() {
+        @Override
+        public Integer apply(String input) {
+            return input.length();
+        }
+    };
+    private final EventPredicate<Integer> even = new EventPredicate<Integer>() {
+        @Override
+        public boolean test(Integer event) {
+            return event % 2 == 0;
+        }
+    };
+    private MutableEventLiveData<String> source;
+
+    @Before
+    public void setUp() {
+        source = new MutableEventLiveData<>(mainThreadRule);
+    }
+
+    private void setValues(String... values) {
+        for (String value : values) {
+            source.setValue(value);
+        }
+    }
+
+    @Test
+    public void stagesAreAppliedInOrder() {
+        EventLiveData<Integer> lengths = EventTransformations.map(source, length);
+        EventTransformations.distinctUntilChanged(EventTransformations.filter(lengths, even)).observeForever(recorder);
+        setValues("ab", "abc", "cd", "abcd");
+
+        assertEquals(Arrays.<Object>asList(2, 4), received);
+    }
+
+    @Test
+    public void mapNotNullDropsNullResults() {
+        EventTransformations.mapNotNull(source, new Function<String, String>() {
+            @Override
+            public String apply(String input) {
+                return input.isEmpty() ? null : input.toUpperCase();
+            }
+        }).observeForever(recorder);
+        setValues("a", "", "b");
+
+        assertEquals(Arrays.<Object>asList("A", "B"), received);
+    }
+
+    @Test
+    public void fusedChainIsOneObserverOfTheSource() {
+        EventLiveData<Integer> lengths = EventTransformations.map(source, length);
+        EventLiveData<Integer> evens = EventTransformations.filter(lengths, even);
+        EventTransformations.distinctUntilChanged(evens).observeForever(recorder);
+
+        assertEquals(1, source.getObserverCount());
+        // intermediate operators are never attached
+        assertFalse(lengths.hasObservers());
+        assertFalse(evens.hasObservers());
+    }
+
+    @Test
+    public void chainIsAttachedToSourceOnlyWhileObserved() {
+        EventLiveData<Integer> lengths = EventTransformations.map(source, length);
+        assertFalse(source.hasObservers());
+
+        lengths.observeForever(recorder);
+        assertTrue(source.hasObservers());
+        lengths.removeObserver(recorder);
+        assertFalse(source.hasObservers());
+    }
+
+    @Test
+    public void distinctStartsOverAfterReattach() {
+        EventLiveData<String> distinct = EventTransformations.distinctUntilChanged(source);
+        distinct.observeForever(recorder);
+        setValues("a", "a");
+        distinct.removeObserver(recorder);
+        distinct.observeForever(recorder);
+        setValues("a");
+
+        assertEquals(Arrays.<Object>asList("a", "a"), received);
+    }
+
+    @Test
+    public void observedUpstreamKeepsItsOwnStageState() {
+        final List<Object> upstream = new ArrayList<>();
+        EventLiveData<String> distinct = EventTransformations.distinctUntilChanged(source);
+        distinct.observeForever(new Observer<String>() {
+            @Override
+            public void onChanged(String event) {
+                upstream.add(event);
+            }
+        });
+        source.setValue("a");
+        EventTransformations.map(distinct, length).observeForever(recorder);
+        setValues("a", "bb");
+
+        assertEquals(Arrays.<Object>asList("a", "bb"), upstream);
+        assertEquals(Arrays.<Object>asList(1, 2), received);
+    }
+
+    @Test
+    public void mergeEmitsEventsOfAllSources() {
+        MutableEventLiveData<String> other = new MutableEventLiveData<>(mainThreadRule);
+        EventTransformations.merge(source, other).observeForever(recorder);
+        source.setValue("a");
+        other.setValue("b");
+        source.setValue("c");
+
+        assertEquals(Arrays.<Object>asList("a", "b", "c"), received);
+    }
+
+    @Test
+    public void combineLatestWaitsForBothSources() {
+        MutableEventLiveData<Integer> numbers = new MutableEventLiveData<>(mainThreadRule);
+        EventTransformations.combineLatest(source, numbers, new EventCombiner<String, Integer, String>() {
+            @Override
+            public String combine(String a, Integer b) {
+                return a + b;
+            }
+        }).observeForever(recorder);
+        source.setValue("a");
+        source.setValue("b");
+        numbers.setValue(1);
+        source.setValue("c");
+
+        assertEquals(Arrays.<Object>asList("b1", "c1"), received);
+    }
+}
@@ -0,0 +1,117 @@
+package com.rugovit.eventlivedata;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Observer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EventTransformationsTimedTest {
+
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+    @Rule
+    public final TestMainThreadRule mainThreadRule = new TestMainThreadRule();
+
+    private TestClock clock;
+    private TestTickScheduler scheduler;
+    private EventTimer timer;
+    private MutableEventLiveData<String> source;
+    private final List<String> received = new ArrayList<>();
+    private final Observer<String> observer = new Observer<String>() {
+        @Override
+        public void onChanged(String event) {
+            received.add(event);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        clock = new TestClock();
+        scheduler = new TestTickScheduler(clock);
+        timer = new EventTimer(clock, scheduler);
+        source = new MutableEventLiveData<>(mainThreadRule);
+    }
+
+    @Test
+    public void throttleFirstIgnoresEventsInWindow() {
+        EventTransformations.throttleFirst(source, 300, timer).observeForever(observer);
+
+        source.setValue("a");
+        scheduler.advanceTo(100);
+        source.setValue("b");
+        scheduler.advanceTo(299);
+        source.setValue("c");
+        scheduler.advanceTo(300);
+        source.setValue("d");
+
+        assertEquals(Arrays.asList("a", "d"), received);
+        assertEquals(0, scheduler.postCount);
+    }
+
+    @Test
+    public void debounceEmitsLatestAfterQuietTime() {
+        EventTransformations.debounce(source, 300, timer).observeForever(observer);
+
+        source.setValue("a");
+        scheduler.advanceTo(50);
+        source.setValue("b");
+        scheduler.advanceTo(349);
+        assertEquals(Collections.<String>emptyList(), received);
+
+        scheduler.advanceTo(350);
+        assertEquals(Collections.singletonList("b"), received);
+        assertNull(scheduler.tick);
+    }
+
+    @Test
+    public void debounceDropsPendingEventWhenObserverIsRemoved() {
+        EventLiveData<String> debounced = EventTransformations.debounce(source, 300, timer);
+        debounced.observeForever(observer);
+
+        source.setValue("a");
+        debounced.removeObserver(observer);
+        assertNull(scheduler.tick);
+
+        scheduler.advanceTo(1000);
+        assertEquals(Collections.<String>emptyList(), received);
+    }
+
+    @Test
+    public void sampleEmitsLatestOncePerPeriod() {
+        EventTransformations.sample(source, 100, timer).observeForever(observer);
+
+        source.setValue("a");
+        scheduler.advanceTo(20);
+        source.setValue("b");
+        scheduler.advanceTo(100);
+        assertEquals(Collections.singletonList("b"), received);
+
+        source.setValue("c");
+        scheduler.advanceTo(200);
+        assertEquals(Arrays.asList("b", "c"), received);
+    }
+
+    @Test
+    public void sampleStaysIdleWithoutEvents() {
+        EventTransformations.sample(source, 100, timer).observeForever(observer);
+
+        source.setValue("a");
+        scheduler.advanceTo(200);
+        int posts = scheduler.postCount;
+        scheduler.advanceTo(10000);
+
+        assertEquals(Collections.singletonList("a"), received);
+        assertNull(scheduler.tick);
+        assertEquals(posts, scheduler.postCount);
+    }
+}
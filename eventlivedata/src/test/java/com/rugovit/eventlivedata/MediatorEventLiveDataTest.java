@@ -0,0 +1,146 @@
+package com.rugovit.eventlivedata;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Observer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MediatorEventLiveDataTest {
+
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+    @Rule
+    public final TestMainThreadRule mainThreadRule = new TestMainThreadRule();
+
+    private final List<String> received = new ArrayList<>();
+    private final Observer<String> recorder = new Observer<String>() {
+        @Override
+        public void onChanged(String event) {
+            received.add(event);
+        }
+    };
+    private MediatorEventLiveData<String> mediator;
+
+    @Before
+    public void setUp() {
+        mediator = new MediatorEventLiveData<>(mainThreadRule);
+    }
+
+    private Observer<String> forward(final String name) {
+        return new Observer<String>() {
+            @Override
+            public void onChanged(String event) {
+                mediator.setValue(name + ":" + event);
+            }
+        };
+    }
+
+    @Test
+    public void sourcesAreObservedOnlyWhileMediatorIsActive() {
+        MutableEventLiveData<String> source = new MutableEventLiveData<>(mainThreadRule);
+        mediator.addSource(source, forward("a"));
+        assertFalse(source.hasObservers());
+
+        mediator.observeForever(recorder);
+        assertTrue(source.hasObservers());
+        source.setValue("1");
+
+        mediator.removeObserver(recorder);
+        assertFalse(source.hasObservers());
+        source.setValue("2");
+        assertEquals(Arrays.asList("a:1"), received);
+    }
+
+    @Test
+    public void removedSourceIsNoLongerObserved() {
+        MutableEventLiveData<String> source = new MutableEventLiveData<>(mainThreadRule);
+        mediator.observeForever(recorder);
+        mediator.addSource(source, forward("a"));
+        source.setValue("1");
+        mediator.removeSource(source);
+        source.setValue("2");
+
+        assertFalse(source.hasObservers());
+        assertEquals(Arrays.asList("a:1"), received);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sameSourceWithDifferentObserverIsRejected() {
+        MutableEventLiveData<String> source = new MutableEventLiveData<>(mainThreadRule);
+        mediator.addSource(source, forward("a"));
+        mediator.addSource(source, forward("b"));
+    }
+
+    @Test
+    public void sourceRemovedWhilePluggingIsNotObserved() {
+        final List<MutableEventLiveData<String>> sources = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final int other = 1 - i;
+            sources.add(new MutableEventLiveData<String>(mainThreadRule) {
+                @Override
+                protected void onActiveEvent() {
+                    mediator.removeSource(sources.get(other));
+                }
+            });
+        }
+        mediator.addSource(sources.get(0), forward("0"));
+        mediator.addSource(sources.get(1), forward("1"));
+
+        mediator.observeForever(recorder);
+        // whichever source is plugged first removes the other one
+        assertTrue(sources.get(0).hasObservers() != sources.get(1).hasObservers());
+    }
+
+    @Test
+    public void sourceAddedWhilePluggingIsObserved() {
+        final List<MutableEventLiveData<String>> added = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final String name = String.valueOf(i);
+            mediator.addSource(new MutableEventLiveData<String>(mainThreadRule) {
+                @Override
+                protected void onActiveEvent() {
+                    MutableEventLiveData<String> source = new MutableEventLiveData<>(mainThreadRule);
+                    added.add(source);
+                    mediator.addSource(source, forward("added" + name));
+                }
+            }, forward(name));
+        }
+
+        mediator.observeForever(recorder);
+        assertEquals(2, added.size());
+        added.get(0).setValue("a");
+        added.get(1).setValue("b");
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void sourceRemovedWhileUnpluggingIsUnplugged() {
+        final List<MutableEventLiveData<String>> sources = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final int other = 1 - i;
+            sources.add(new MutableEventLiveData<String>(mainThreadRule) {
+                @Override
+                protected void onInactive() {
+                    mediator.removeSource(sources.get(other));
+                }
+            });
+        }
+        mediator.addSource(sources.get(0), forward("0"));
+        mediator.addSource(sources.get(1), forward("1"));
+        mediator.observeForever(recorder);
+
+        mediator.removeObserver(recorder);
+        assertFalse(sources.get(0).hasObservers());
+        assertFalse(sources.get(1).hasObservers());
+    }
+}
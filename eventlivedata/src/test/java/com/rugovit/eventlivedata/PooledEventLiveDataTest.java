@@ -0,0 +1,110 @@
+package com.rugovit.eventlivedata;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.core.EventPool;
+import com.rugovit.eventlivedata.core.PooledEvent;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PooledEventLiveDataTest {
+
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+    @Rule
+    public final TestMainThreadRule mainThreadRule = new TestMainThreadRule();
+
+    private final List<String> received = new ArrayList<>();
+    private PooledEventLiveData<Payload> liveData;
+
+    @Before
+    public void setUp() {
+        liveData = new PooledEventLiveData<>(mainThreadRule, 4, new EventPool.Factory<Payload>() {
+            @Override
+            public Payload create() {
+                return new Payload();
+            }
+        });
+    }
+
+    private Payload obtain(String name) {
+        Payload payload = liveData.obtain();
+        payload.name = name;
+        return payload;
+    }
+
+    private void observeRecording() {
+        liveData.observeForever(new Observer<Payload>() {
+            @Override
+            public void onChanged(Payload payload) {
+                received.add(payload.name + " " + payload.getRefCount());
+            }
+        });
+    }
+
+    @Test
+    public void payloadIsReleasedAfterDelivery() {
+        observeRecording();
+        Payload payload = obtain("a");
+        liveData.setValue(payload);
+
+        assertEquals(Arrays.asList("a 1"), received);
+        assertEquals(0, payload.getRefCount());
+        assertNull(liveData.getValue());
+    }
+
+    @Test
+    public void valueSetFromObserverIsReleasedAfterItsOwnDelivery() {
+        liveData.observeForever(new Observer<Payload>() {
+            @Override
+            public void onChanged(Payload payload) {
+                if ("outer".equals(payload.name)) {
+                    liveData.setValue(obtain("nested"));
+                }
+            }
+        });
+        observeRecording();
+        Payload outer = obtain("outer");
+        liveData.setValue(outer);
+
+        assertEquals(Arrays.asList("outer 1", "nested 1"), received);
+        assertEquals(0, outer.getRefCount());
+        assertNull(liveData.getValue());
+    }
+
+    @Test
+    public void valueReplacedWithinOneDispatchIsReleasedUndelivered() {
+        final List<Payload> nested = new ArrayList<>();
+        liveData.observeForever(new Observer<Payload>() {
+            @Override
+            public void onChanged(Payload payload) {
+                if ("outer".equals(payload.name)) {
+                    nested.add(obtain("replaced"));
+                    liveData.setValue(nested.get(0));
+                    nested.add(obtain("latest"));
+                    liveData.setValue(nested.get(1));
+                }
+            }
+        });
+        observeRecording();
+        liveData.setValue(obtain("outer"));
+
+        assertEquals(Arrays.asList("outer 1", "latest 1"), received);
+        assertEquals(0, nested.get(0).getRefCount());
+        assertEquals(0, nested.get(1).getRefCount());
+    }
+
+    private static final class Payload extends PooledEvent {
+        String name;
+    }
+}
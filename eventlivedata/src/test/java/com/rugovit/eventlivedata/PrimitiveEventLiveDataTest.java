@@ -0,0 +1,161 @@
+package com.rugovit.eventlivedata;
+
+import androidx.lifecycle.Lifecycle;
+
+import com.rugovit.eventlivedata.core.OverflowPolicy;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitiveEventLiveDataTest {
+
+    @Rule
+    public final TestMainThreadRule mainThreadRule = new TestMainThreadRule();
+
+    private final List<Object> received = new ArrayList<>();
+    private final IntObserver intRecorder = new IntObserver() {
+        @Override
+        public void onChanged(int value) {
+            received.add(value);
+        }
+    };
+
+    private MutableIntEventLiveData newIntLiveData(int capacity, OverflowPolicy overflowPolicy) {
+        return new MutableIntEventLiveData(mainThreadRule, capacity, overflowPolicy);
+    }
+
+    @Test
+    public void setValueIsDeliveredToActiveObservers() {
+        MutableIntEventLiveData liveData = newIntLiveData(4, OverflowPolicy.DROP_OLDEST);
+        liveData.setValue(1);
+        liveData.observeForever(intRecorder);
+        liveData.setValue(2);
+        liveData.setValue(2);
+
+        assertEquals(Arrays.<Object>asList(2, 2), received);
+    }
+
+    @Test
+    public void postedValuesAreDeliveredInOrder() {
+        MutableIntEventLiveData liveData = newIntLiveData(4, OverflowPolicy.DROP_OLDEST);
+        liveData.observeForever(intRecorder);
+        liveData.postValue(1);
+        liveData.postValue(2);
+        liveData.postValue(3);
+        assertTrue(received.isEmpty());
+
+        mainThreadRule.runPending();
+        assertEquals(Arrays.<Object>asList(1, 2, 3), received);
+        assertEquals(0, liveData.getDroppedEventCount());
+    }
+
+    @Test
+    public void fullPostQueueDropsByPolicy() {
+        MutableIntEventLiveData oldest = newIntLiveData(2, OverflowPolicy.DROP_OLDEST);
+        MutableIntEventLiveData newest = newIntLiveData(2, OverflowPolicy.DROP_NEWEST);
+        final List<Integer> newestReceived = new ArrayList<>();
+        oldest.observeForever(intRecorder);
+        newest.observeForever(new IntObserver() {
+            @Override
+            public void onChanged(int value) {
+                newestReceived.add(value);
+            }
+        });
+        for (int i = 1; i <= 3; i++) {
+            oldest.postValue(i);
+            newest.postValue(i);
+        }
+        mainThreadRule.runPending();
+
+        assertEquals(Arrays.<Object>asList(2, 3), received);
+        assertEquals(Arrays.asList(1, 2), newestReceived);
+        assertEquals(1, oldest.getDroppedEventCount());
+        assertEquals(1, newest.getDroppedEventCount());
+    }
+
+    @Test
+    public void longAndBooleanValuesAreDeliveredUnchanged() {
+        MutableLongEventLiveData longs = new MutableLongEventLiveData(mainThreadRule, 4, OverflowPolicy.DROP_OLDEST);
+        MutableBooleanEventLiveData booleans = new MutableBooleanEventLiveData(mainThreadRule, 4, OverflowPolicy.DROP_OLDEST);
+        longs.observeForever(new LongObserver() {
+            @Override
+            public void onChanged(long value) {
+                received.add(value);
+            }
+        });
+        booleans.observeForever(new BooleanObserver() {
+            @Override
+            public void onChanged(boolean value) {
+                received.add(value);
+            }
+        });
+        longs.setValue(Long.MIN_VALUE);
+        longs.postValue(Long.MAX_VALUE);
+        booleans.setValue(true);
+        booleans.postValue(false);
+        mainThreadRule.runPending();
+
+        assertEquals(Arrays.<Object>asList(Long.MIN_VALUE, true, Long.MAX_VALUE, false), received);
+    }
+
+    @Test
+    public void ownerBoundObserverReceivesOnlyWhileStarted() {
+        MutableIntEventLiveData liveData = newIntLiveData(4, OverflowPolicy.DROP_OLDEST);
+        TestLifecycleOwner owner = new TestLifecycleOwner();
+        owner.handle(Lifecycle.Event.ON_CREATE);
+        liveData.observe(owner, intRecorder);
+        liveData.setValue(1);
+        assertFalse(liveData.hasActiveObservers());
+
+        owner.handle(Lifecycle.Event.ON_START);
+        liveData.setValue(2);
+        owner.handle(Lifecycle.Event.ON_STOP);
+        liveData.setValue(3);
+
+        assertEquals(Collections.<Object>singletonList(2), received);
+    }
+
+    @Test
+    public void observerIsRemovedOnDestroy() {
+        MutableIntEventLiveData liveData = newIntLiveData(4, OverflowPolicy.DROP_OLDEST);
+        TestLifecycleOwner owner = new TestLifecycleOwner();
+        owner.handle(Lifecycle.Event.ON_CREATE);
+        owner.handle(Lifecycle.Event.ON_START);
+        liveData.observe(owner, intRecorder);
+        assertTrue(liveData.hasActiveObservers());
+
+        owner.handle(Lifecycle.Event.ON_STOP);
+        owner.handle(Lifecycle.Event.ON_DESTROY);
+        assertFalse(liveData.hasObservers());
+        assertEquals(0, owner.getObserverCount());
+    }
+
+    @Test
+    public void activeStateCallbacksFollowObservers() {
+        final List<String> states = new ArrayList<>();
+        MutableIntEventLiveData liveData = new MutableIntEventLiveData(mainThreadRule, 4, OverflowPolicy.DROP_OLDEST) {
+            @Override
+            protected void onActiveEvent() {
+                states.add("active");
+            }
+
+            @Override
+            protected void onInactive() {
+                states.add("inactive");
+            }
+        };
+        liveData.observeForever(intRecorder);
+        liveData.removeObserver(intRecorder);
+
+        assertEquals(Arrays.asList("active", "inactive"), states);
+    }
+}
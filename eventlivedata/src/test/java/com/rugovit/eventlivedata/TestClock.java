@@ -0,0 +1,13 @@
+package com.rugovit.eventlivedata;
+
+/**
+ * Manually advanced {@link EventClock}.
+ */
+final class TestClock implements EventClock {
+    long now;
+
+    @Override
+    public long uptimeMillis() {
+        return now;
+    }
+}
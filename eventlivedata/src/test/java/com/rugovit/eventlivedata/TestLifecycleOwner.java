@@ -0,0 +1,78 @@
+package com.rugovit.eventlivedata;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manually moved {@link LifecycleOwner}, an added observer is brought up to the current state like
+ * LifecycleRegistry does.
+ */
+final class TestLifecycleOwner implements LifecycleOwner {
+    private final List<LifecycleEventObserver> observers = new ArrayList<>();
+    private Lifecycle.State state = Lifecycle.State.INITIALIZED;
+    private final Lifecycle lifecycle = new Lifecycle() {
+        @Override
+        public void addObserver(@NonNull LifecycleObserver observer) {
+            LifecycleEventObserver eventObserver = (LifecycleEventObserver) observer;
+            observers.add(eventObserver);
+            Lifecycle.Event[] upEvents = {Event.ON_CREATE, Event.ON_START, Event.ON_RESUME};
+            for (int i = 0; i < state.ordinal() - State.INITIALIZED.ordinal(); i++) {
+                eventObserver.onStateChanged(TestLifecycleOwner.this, upEvents[i]);
+            }
+        }
+
+        @Override
+        public void removeObserver(@NonNull LifecycleObserver observer) {
+            observers.remove(observer);
+        }
+
+        @NonNull
+        @Override
+        public State getCurrentState() {
+            return state;
+        }
+    };
+
+    @NonNull
+    @Override
+    public Lifecycle getLifecycle() {
+        return lifecycle;
+    }
+
+    /**
+     * Moves to the state the event leads to and sends the event to all observers.
+     */
+    void handle(Lifecycle.Event event) {
+        state = stateAfter(event);
+        for (LifecycleEventObserver observer : new ArrayList<>(observers)) {
+            observer.onStateChanged(this, event);
+        }
+    }
+
+    int getObserverCount() {
+        return observers.size();
+    }
+
+    private static Lifecycle.State stateAfter(Lifecycle.Event event) {
+        switch (event) {
+            case ON_CREATE:
+            case ON_STOP:
+                return Lifecycle.State.CREATED;
+            case ON_START:
+            case ON_PAUSE:
+                return Lifecycle.State.STARTED;
+            case ON_RESUME:
+                return Lifecycle.State.RESUMED;
+            case ON_DESTROY:
+                return Lifecycle.State.DESTROYED;
+            default:
+                throw new IllegalArgumentException(event + " has no target state");
+        }
+    }
+}
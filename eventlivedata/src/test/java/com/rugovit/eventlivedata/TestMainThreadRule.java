@@ -0,0 +1,41 @@
+package com.rugovit.eventlivedata;
+
+import com.rugovit.eventlivedata.core.MainThreadScheduler;
+
+import org.junit.rules.ExternalResource;
+
+import java.util.ArrayDeque;
+
+/**
+ * Treats the test thread as the main thread of EventLiveData created with it, posted tasks run on
+ * {@link #runPending()}.
+ */
+final class TestMainThreadRule extends ExternalResource implements MainThreadScheduler {
+    private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+
+    @Override
+    public boolean isMainThread() {
+        return true;
+    }
+
+    @Override
+    public void post(Runnable task) {
+        pending.add(task);
+    }
+
+    @Override
+    protected void after() {
+        pending.clear();
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    void runPending() {
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.rugovit.eventlivedata;
+
+import static org.junit.Assert.assertNull;
+
+/**
+ * Stands for the main looper in {@link EventTimer} tests, runs the posted tick when the clock reaches it.
+ */
+final class TestTickScheduler implements EventTimer.TickScheduler {
+    private final TestClock clock;
+    Runnable tick;
+    long tickTime = -1;
+    int postCount;
+
+    TestTickScheduler(TestClock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void postAt(Runnable tick, long uptimeMillis) {
+        assertNull("tick posted twice", this.tick);
+        this.tick = tick;
+        this.tickTime = uptimeMillis;
+        postCount++;
+    }
+
+    @Override
+    public void cancel(Runnable tick) {
+        if (this.tick == tick) {
+            this.tick = null;
+            this.tickTime = -1;
+        }
+    }
+
+    /**
+     * Moves the clock to the given time running every tick posted for that time or earlier.
+     */
+    void advanceTo(long time) {
+        while (tick != null && tickTime <= time) {
+            Runnable due = tick;
+            clock.now = Math.max(clock.now, tickTime);
+            tick = null;
+            tickTime = -1;
+            due.run();
+        }
+        clock.now = time;
+    }
+}
@@ -0,0 +1,44 @@
+package com.rugovit.eventlivedata.app;
+
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.Observer;
+
+import com.rugovit.eventlivedata.EventLiveData;
+import com.rugovit.eventlivedata.EventLiveDataBus;
+
+/**
+ * Stands for application code in leak detector tests, frames of the library package are never reported as call sites.
+ */
+public final class TestRegistrations {
+
+    private TestRegistrations() {
+    }
+
+    public static void observe(EventLiveData<String> liveData, LifecycleOwner owner) {
+        liveData.observe(owner, newObserver());
+    }
+
+    public static void observeElsewhere(EventLiveData<String> liveData, LifecycleOwner owner) {
+        liveData.observe(owner, newObserver());
+    }
+
+    public static void observeForever(EventLiveData<String> liveData, Observer<String> observer) {
+        liveData.observeForever(observer);
+    }
+
+    public static void observeForever(EventLiveDataBus bus, Object topic, Observer<String> observer) {
+        bus.observeForever(topic, observer);
+    }
+
+    public static void observeForeverWeak(EventLiveData<String> liveData, Observer<String> observer) {
+        liveData.observeForeverWeak(observer);
+    }
+
+    public static Observer<String> newObserver() {
+        return new Observer<String>() {
+            @Override
+            public void onChanged(String event) {
+            }
+        };
+    }
+}